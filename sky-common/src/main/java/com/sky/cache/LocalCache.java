@@ -0,0 +1,163 @@
+package com.sky.cache;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+
+/**
+ * 进程内缓存，按写入时间过期，超过容量时淘汰最早过期的条目
+ * 不缓存null值
+ * @param <K>
+ * @param <V>
+ */
+public class LocalCache<K, V> {
+
+    private final String name;
+    private final long ttlMillis;
+    private final int maxSize;
+
+    private final Map<K, Entry<V>> entries = new ConcurrentHashMap<>();
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+
+    /**
+     * @param name 缓存名称，用于统计
+     * @param ttlMillis 写入后的有效时间（毫秒）
+     * @param maxSize 最大条目数
+     */
+    public LocalCache(String name, long ttlMillis, int maxSize) {
+        this.name = name;
+        this.ttlMillis = ttlMillis;
+        this.maxSize = maxSize;
+    }
+
+    /**
+     * 读取缓存，不存在或已过期时返回null
+     * @param key
+     * @return
+     */
+    public V getIfPresent(K key) {
+        Entry<V> entry = entries.get(key);
+        if (entry == null) {
+            misses.increment();
+            return null;
+        }
+        if (entry.isExpired()) {
+            entries.remove(key, entry);
+            misses.increment();
+            return null;
+        }
+        hits.increment();
+        return entry.value;
+    }
+
+    /**
+     * 读取缓存，未命中时调用loader加载并写入缓存
+     * @param key
+     * @param loader
+     * @return
+     */
+    public V get(K key, Function<? super K, ? extends V> loader) {
+        V value = getIfPresent(key);
+        if (value == null) {
+            value = loader.apply(key);
+            put(key, value);
+        }
+        return value;
+    }
+
+    /**
+     * 写入缓存
+     * @param key
+     * @param value
+     */
+    public void put(K key, V value) {
+        if (value == null) {
+            return;
+        }
+        if (entries.size() >= maxSize && !entries.containsKey(key)) {
+            evict();
+        }
+        entries.put(key, new Entry<>(value, System.currentTimeMillis() + ttlMillis));
+    }
+
+    /**
+     * 删除指定缓存
+     * @param key
+     */
+    public void invalidate(K key) {
+        entries.remove(key);
+    }
+
+    /**
+     * 清空缓存
+     */
+    public void invalidateAll() {
+        entries.clear();
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * 命中、未命中、淘汰次数和当前条目数
+     * @return
+     */
+    public Map<String, Object> getStats() {
+        long hitCount = hits.sum();
+        long missCount = misses.sum();
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("hits", hitCount);
+        stats.put("misses", missCount);
+        stats.put("hitRatio", hitCount + missCount == 0 ? 0.0 : (double) hitCount / (hitCount + missCount));
+        stats.put("evictions", evictions.sum());
+        stats.put("size", entries.size());
+        return stats;
+    }
+
+    /**
+     * 先清理过期条目，仍然超过容量时淘汰最早过期的条目
+     */
+    private void evict() {
+        entries.entrySet().removeIf(e -> {
+            boolean expired = e.getValue().isExpired();
+            if (expired) {
+                evictions.increment();
+            }
+            return expired;
+        });
+        while (entries.size() >= maxSize) {
+            K oldestKey = null;
+            long oldestExpireAt = Long.MAX_VALUE;
+            for (Map.Entry<K, Entry<V>> e : entries.entrySet()) {
+                if (e.getValue().expireAt < oldestExpireAt) {
+                    oldestExpireAt = e.getValue().expireAt;
+                    oldestKey = e.getKey();
+                }
+            }
+            if (oldestKey == null || entries.remove(oldestKey) == null) {
+                return;
+            }
+            evictions.increment();
+        }
+    }
+
+    private static class Entry<V> {
+        private final V value;
+        private final long expireAt;
+
+        Entry(V value, long expireAt) {
+            this.value = value;
+            this.expireAt = expireAt;
+        }
+
+        boolean isExpired() {
+            return System.currentTimeMillis() > expireAt;
+        }
+    }
+}
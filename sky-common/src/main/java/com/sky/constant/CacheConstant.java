@@ -0,0 +1,37 @@
+package com.sky.constant;
+
+/**
+ * 缓存key和缓存失效通知频道
+ */
+public class CacheConstant {
+
+    //菜品缓存key前缀，完整格式为 dish_v版本号_分类id
+    public static final String DISH_KEY_PREFIX = "dish_";
+
+    //菜品缓存版本号，全部失效时自增，旧版本的key按过期时间自然淘汰
+    public static final String DISH_VERSION_KEY = "dish_version";
+
+    //菜品缓存失效通知频道，消息内容为分类id，全部失效时为 *
+    public static final String DISH_EVICT_CHANNEL = "dish_cache_evict";
+
+    //菜单版本号，分类、菜品、套餐修改时自增，各节点据此重建菜单快照
+    public static final String MENU_VERSION_KEY = "menu_version";
+
+    //店铺营业状态，1营业中 0打烊中
+    public static final String SHOP_STATUS_KEY = "SHOP_STATUS";
+
+    //店铺营业状态变更通知频道，消息内容为新的营业状态
+    public static final String SHOP_STATUS_CHANNEL = "shop_status";
+
+    //购物车key前缀，后接用户id，每个用户一个hash
+    public static final String CART_KEY_PREFIX = "cart_";
+
+    //购物车有变化、等待写入数据库的用户id集合
+    public static final String CART_DIRTY_KEY = "cart_dirty";
+
+    //幂等请求key前缀，值为处理中标记或已序列化的处理结果
+    public static final String IDEMPOTENCY_KEY_PREFIX = "idempotency_";
+
+    //失效通知中表示全部失效的消息内容
+    public static final String EVICT_ALL = "*";
+}
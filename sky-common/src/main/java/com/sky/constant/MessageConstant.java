@@ -24,5 +24,11 @@ public class MessageConstant {
     public static final String DISH_BE_RELATED_BY_SETMEAL = "当前菜品关联了套餐,不能删除";
     public static final String ORDER_STATUS_ERROR = "订单状态错误";
     public static final String ORDER_NOT_FOUND = "订单不存在";
+    public static final String REPORT_DATE_RANGE_ERROR = "报表日期区间不合法";
+    public static final String EXPORT_JOB_NOT_FOUND = "导出任务不存在或已过期";
+    public static final String EXPORT_JOB_NOT_FINISHED = "报表尚未导出完成";
+    public static final String EXPORT_JOB_BUSY = "导出任务过多，请稍后再试";
+    public static final String SHOP_CLOSED = "店铺已打烊，暂不接单";
+    public static final String REQUEST_IN_PROGRESS = "请求正在处理中，请勿重复提交";
 
 }
@@ -0,0 +1,12 @@
+package com.sky.exception;
+
+/**
+ * 重复提交的请求仍在处理中
+ */
+public class DuplicateRequestException extends BaseException {
+
+    public DuplicateRequestException(String msg) {
+        super(msg);
+    }
+
+}
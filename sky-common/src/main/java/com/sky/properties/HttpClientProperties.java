@@ -0,0 +1,20 @@
+package com.sky.properties;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+@Component
+@ConfigurationProperties(prefix = "sky.http")
+@Data
+public class HttpClientProperties {
+
+    private int maxTotal = 200; //连接池最大连接数
+    private int maxPerRoute = 50; //每个目标主机的最大连接数
+    private int connectTimeout = 5000; //建立连接超时（毫秒）
+    private int connectionRequestTimeout = 5000; //从连接池获取连接超时（毫秒）
+    private int socketTimeout = 5000; //读取数据超时（毫秒）
+    private long keepAlive = 30000; //服务端未指定时的默认keep-alive时长（毫秒）
+    private long idleTimeout = 60000; //空闲连接回收时长（毫秒）
+
+}
@@ -0,0 +1,35 @@
+package com.sky.properties;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Spring Cache 的redis缓存配置，未在 caches 中声明的缓存使用默认配置
+ */
+@Component
+@ConfigurationProperties(prefix = "sky.cache")
+@Data
+public class RedisCacheProperties {
+
+    private long defaultTtl = 0; //默认过期时间（秒），0表示不过期
+    private boolean cacheNullValues = true; //默认是否缓存null值
+    private String keyPrefix; //默认key前缀，完整key为 前缀+缓存名::key，为空时不加前缀
+    private long staleTtl = 600000; //stale-while-revalidate旧值的保留时间（毫秒）
+    private int staleMaxSize = 200; //stale-while-revalidate每个缓存保留旧值的最大条目数
+
+    //缓存名称 -> 单独配置
+    private Map<String, CacheSpec> caches = new LinkedHashMap<>();
+
+    @Data
+    public static class CacheSpec {
+        private Long ttl; //过期时间（秒），0表示不过期，为空时使用默认值
+        private Boolean cacheNullValues; //是否缓存null值，为空时使用默认值
+        private String keyPrefix; //key前缀，为空时使用默认值
+        private String serializer; //值序列化方式 json/jdk，为空时使用 sky.redis.value-serializer
+        private boolean staleWhileRevalidate; //缓存被清理后是否先返回旧值、后台重新加载
+    }
+}
@@ -1,32 +1,106 @@
 package com.sky.utils;
 
 import com.alibaba.fastjson.JSONObject;
+import com.sky.properties.HttpClientProperties;
+import lombok.extern.slf4j.Slf4j;
 import org.apache.http.NameValuePair;
 import org.apache.http.client.config.RequestConfig;
 import org.apache.http.client.entity.UrlEncodedFormEntity;
 import org.apache.http.client.methods.CloseableHttpResponse;
 import org.apache.http.client.methods.HttpGet;
 import org.apache.http.client.methods.HttpPost;
+import org.apache.http.client.methods.HttpRequestBase;
 import org.apache.http.client.utils.URIBuilder;
 import org.apache.http.entity.StringEntity;
 import org.apache.http.impl.client.CloseableHttpClient;
+import org.apache.http.impl.client.DefaultConnectionKeepAliveStrategy;
 import org.apache.http.impl.client.HttpClients;
+import org.apache.http.impl.conn.PoolingHttpClientConnectionManager;
 import org.apache.http.message.BasicNameValuePair;
+import org.apache.http.pool.PoolStats;
 import org.apache.http.util.EntityUtils;
 
 import java.io.IOException;
 import java.net.URI;
 import java.util.ArrayList;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
 
 /**
  * Http工具类
+ * 所有请求共用一个带连接池的HttpClient，复用keep-alive连接，并按目标主机统计耗时和失败次数
  */
+@Slf4j
 public class HttpClientUtil {
 
     static final  int TIMEOUT_MSEC = 5 * 1000;
 
+    //共享的连接池客户端，未调用configure时按默认配置创建
+    private static volatile CloseableHttpClient httpClient;
+    private static volatile PoolingHttpClientConnectionManager connectionManager;
+    private static volatile RequestConfig requestConfig = RequestConfig.custom()
+            .setConnectTimeout(TIMEOUT_MSEC)
+            .setConnectionRequestTimeout(TIMEOUT_MSEC)
+            .setSocketTimeout(TIMEOUT_MSEC).build();
+
+    //主机 -> 请求统计
+    private static final Map<String, HostStats> HOST_STATS = new ConcurrentHashMap<>();
+
+    /**
+     * 按配置重建连接池，旧的客户端会被关闭
+     * @param properties
+     */
+    public static synchronized void configure(HttpClientProperties properties) {
+        CloseableHttpClient old = httpClient;
+        requestConfig = RequestConfig.custom()
+                .setConnectTimeout(properties.getConnectTimeout())
+                .setConnectionRequestTimeout(properties.getConnectionRequestTimeout())
+                .setSocketTimeout(properties.getSocketTimeout()).build();
+        httpClient = createClient(properties);
+        closeQuietly(old);
+    }
+
+    /**
+     * 关闭连接池
+     */
+    public static synchronized void shutdown() {
+        closeQuietly(httpClient);
+        httpClient = null;
+        connectionManager = null;
+    }
+
+    /**
+     * 各主机的请求数、失败数、平均和最大耗时（毫秒）
+     * @return
+     */
+    public static Map<String, Map<String, Object>> getStats() {
+        Map<String, Map<String, Object>> result = new LinkedHashMap<>();
+        HOST_STATS.forEach((host, stats) -> result.put(host, stats.toMap()));
+        return result;
+    }
+
+    /**
+     * 连接池使用情况
+     * @return
+     */
+    public static Map<String, Integer> getPoolStats() {
+        Map<String, Integer> map = new LinkedHashMap<>();
+        PoolingHttpClientConnectionManager manager = connectionManager;
+        if (manager != null) {
+            PoolStats stats = manager.getTotalStats();
+            map.put("leased", stats.getLeased());
+            map.put("available", stats.getAvailable());
+            map.put("pending", stats.getPending());
+            map.put("max", stats.getMax());
+        }
+        return map;
+    }
+
     /**
      * 发送GET方式请求
      * @param url
@@ -34,11 +108,7 @@ public class HttpClientUtil {
      * @return
      */
     public static String doGet(String url,Map<String,String> paramMap){
-        // 创建Httpclient对象
-        CloseableHttpClient httpClient = HttpClients.createDefault();
-
         String result = "";
-        CloseableHttpResponse response = null;
 
         try{
             URIBuilder builder = new URIBuilder(url);
@@ -51,23 +121,12 @@ public class HttpClientUtil {
 
             //创建GET请求
             HttpGet httpGet = new HttpGet(uri);
+            httpGet.setConfig(requestConfig);
 
             //发送请求
-            response = httpClient.execute(httpGet);
-
-            //判断响应状态
-            if(response.getStatusLine().getStatusCode() == 200){
-                result = EntityUtils.toString(response.getEntity(),"UTF-8");
-            }
+            result = execute(httpGet, true);
         }catch (Exception e){
             e.printStackTrace();
-        }finally {
-            try {
-                response.close();
-                httpClient.close();
-            } catch (IOException e) {
-                e.printStackTrace();
-            }
         }
 
         return result;
@@ -81,43 +140,24 @@ public class HttpClientUtil {
      * @throws IOException
      */
     public static String doPost(String url, Map<String, String> paramMap) throws IOException {
-        // 创建Httpclient对象
-        CloseableHttpClient httpClient = HttpClients.createDefault();
-        CloseableHttpResponse response = null;
-        String resultString = "";
+        // 创建Http Post请求
+        HttpPost httpPost = new HttpPost(url);
 
-        try {
-            // 创建Http Post请求
-            HttpPost httpPost = new HttpPost(url);
-
-            // 创建参数列表
-            if (paramMap != null) {
-                List<NameValuePair> paramList = new ArrayList();
-                for (Map.Entry<String, String> param : paramMap.entrySet()) {
-                    paramList.add(new BasicNameValuePair(param.getKey(), param.getValue()));
-                }
-                // 模拟表单
-                UrlEncodedFormEntity entity = new UrlEncodedFormEntity(paramList);
-                httpPost.setEntity(entity);
-            }
-
-            httpPost.setConfig(builderRequestConfig());
-
-            // 执行http请求
-            response = httpClient.execute(httpPost);
-
-            resultString = EntityUtils.toString(response.getEntity(), "UTF-8");
-        } catch (Exception e) {
-            throw e;
-        } finally {
-            try {
-                response.close();
-            } catch (IOException e) {
-                e.printStackTrace();
+        // 创建参数列表
+        if (paramMap != null) {
+            List<NameValuePair> paramList = new ArrayList();
+            for (Map.Entry<String, String> param : paramMap.entrySet()) {
+                paramList.add(new BasicNameValuePair(param.getKey(), param.getValue()));
             }
+            // 模拟表单
+            UrlEncodedFormEntity entity = new UrlEncodedFormEntity(paramList);
+            httpPost.setEntity(entity);
         }
 
-        return resultString;
+        httpPost.setConfig(requestConfig);
+
+        // 执行http请求
+        return execute(httpPost, false);
     }
 
     /**
@@ -128,52 +168,126 @@ public class HttpClientUtil {
      * @throws IOException
      */
     public static String doPost4Json(String url, Map<String, String> paramMap) throws IOException {
-        // 创建Httpclient对象
-        CloseableHttpClient httpClient = HttpClients.createDefault();
-        CloseableHttpResponse response = null;
-        String resultString = "";
+        // 创建Http Post请求
+        HttpPost httpPost = new HttpPost(url);
 
-        try {
-            // 创建Http Post请求
-            HttpPost httpPost = new HttpPost(url);
-
-            if (paramMap != null) {
-                //构造json格式数据
-                JSONObject jsonObject = new JSONObject();
-                for (Map.Entry<String, String> param : paramMap.entrySet()) {
-                    jsonObject.put(param.getKey(),param.getValue());
-                }
-                StringEntity entity = new StringEntity(jsonObject.toString(),"utf-8");
-                //设置请求编码
-                entity.setContentEncoding("utf-8");
-                //设置数据类型
-                entity.setContentType("application/json");
-                httpPost.setEntity(entity);
+        if (paramMap != null) {
+            //构造json格式数据
+            JSONObject jsonObject = new JSONObject();
+            for (Map.Entry<String, String> param : paramMap.entrySet()) {
+                jsonObject.put(param.getKey(),param.getValue());
             }
+            StringEntity entity = new StringEntity(jsonObject.toString(),"utf-8");
+            //设置请求编码
+            entity.setContentEncoding("utf-8");
+            //设置数据类型
+            entity.setContentType("application/json");
+            httpPost.setEntity(entity);
+        }
 
-            httpPost.setConfig(builderRequestConfig());
+        httpPost.setConfig(requestConfig);
 
-            // 执行http请求
-            response = httpClient.execute(httpPost);
+        // 执行http请求
+        return execute(httpPost, false);
+    }
 
-            resultString = EntityUtils.toString(response.getEntity(), "UTF-8");
-        } catch (Exception e) {
-            throw e;
+    /**
+     * 通过共享客户端执行请求，读取响应体后连接归还连接池
+     * @param request
+     * @param onlyOk 为true时非200响应返回空字符串
+     * @return
+     * @throws IOException
+     */
+    private static String execute(HttpRequestBase request, boolean onlyOk) throws IOException {
+        HostStats stats = HOST_STATS.computeIfAbsent(request.getURI().getHost(), h -> new HostStats());
+        long start = System.nanoTime();
+        boolean success = false;
+        try (CloseableHttpResponse response = getClient().execute(request)) {
+            int statusCode = response.getStatusLine().getStatusCode();
+            success = statusCode < 400;
+            if (onlyOk && statusCode != 200) {
+                EntityUtils.consume(response.getEntity());
+                return "";
+            }
+            return EntityUtils.toString(response.getEntity(), "UTF-8");
         } finally {
-            try {
-                response.close();
-            } catch (IOException e) {
-                e.printStackTrace();
+            stats.record(System.nanoTime() - start, success);
+        }
+    }
+
+    private static CloseableHttpClient getClient() {
+        CloseableHttpClient client = httpClient;
+        if (client == null) {
+            synchronized (HttpClientUtil.class) {
+                client = httpClient;
+                if (client == null) {
+                    client = createClient(new HttpClientProperties());
+                    httpClient = client;
+                }
             }
         }
+        return client;
+    }
 
-        return resultString;
+    private static CloseableHttpClient createClient(HttpClientProperties properties) {
+        PoolingHttpClientConnectionManager manager = new PoolingHttpClientConnectionManager();
+        manager.setMaxTotal(properties.getMaxTotal());
+        manager.setDefaultMaxPerRoute(properties.getMaxPerRoute());
+        // 复用前校验空闲超过2秒的连接，避免拿到被服务端关闭的连接
+        manager.setValidateAfterInactivity(2000);
+        connectionManager = manager;
+
+        long keepAlive = properties.getKeepAlive();
+        return HttpClients.custom()
+                .setConnectionManager(manager)
+                .setDefaultRequestConfig(requestConfig)
+                .setKeepAliveStrategy((response, context) -> {
+                    long duration = DefaultConnectionKeepAliveStrategy.INSTANCE.getKeepAliveDuration(response, context);
+                    return duration > 0 ? duration : keepAlive;
+                })
+                .evictExpiredConnections()
+                .evictIdleConnections(properties.getIdleTimeout(), TimeUnit.MILLISECONDS)
+                .build();
     }
-    private static RequestConfig builderRequestConfig() {
-        return RequestConfig.custom()
-                .setConnectTimeout(TIMEOUT_MSEC)
-                .setConnectionRequestTimeout(TIMEOUT_MSEC)
-                .setSocketTimeout(TIMEOUT_MSEC).build();
+
+    private static void closeQuietly(CloseableHttpClient client) {
+        if (client == null) {
+            return;
+        }
+        try {
+            client.close();
+        } catch (IOException e) {
+            log.warn("关闭HttpClient失败：{}", e.getMessage());
+        }
     }
 
+    /**
+     * 单个主机的请求统计
+     */
+    private static class HostStats {
+        private final LongAdder count = new LongAdder();
+        private final LongAdder errors = new LongAdder();
+        private final LongAdder totalNanos = new LongAdder();
+        //并发记录时取最大值，不会被较小的耗时覆盖
+        private final LongAccumulator maxNanos = new LongAccumulator(Math::max, 0);
+
+        void record(long nanos, boolean success) {
+            count.increment();
+            totalNanos.add(nanos);
+            if (!success) {
+                errors.increment();
+            }
+            maxNanos.accumulate(nanos);
+        }
+
+        Map<String, Object> toMap() {
+            long total = count.sum();
+            Map<String, Object> map = new LinkedHashMap<>();
+            map.put("count", total);
+            map.put("errors", errors.sum());
+            map.put("avgMillis", total == 0 ? 0 : totalNanos.sum() / total / 1_000_000.0);
+            map.put("maxMillis", maxNanos.get() / 1_000_000.0);
+            return map;
+        }
+    }
 }
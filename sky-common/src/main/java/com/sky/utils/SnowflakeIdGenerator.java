@@ -0,0 +1,135 @@
+package com.sky.utils;
+
+import java.lang.management.ManagementFactory;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 雪花算法id生成器：41位毫秒时间戳 + 10位节点id + 12位毫秒内序号
+ * 时间戳和序号打包在一个long里用CAS更新，不加锁；
+ * 同一毫秒序号用完或时钟回拨时沿用上一个时间戳继续递增，
+ * 领先系统时钟超过允许的回拨时间则拒绝生成，所以生成的时间戳最多领先系统时钟 maxBackwardMillis。
+ * 重启后上一个进程可能已经用过领先的时间戳，新实例从进程启动时间 + maxBackwardMillis 开始生成，不会重复
+ * （前提是重启前后系统时钟没有回拨）
+ */
+public class SnowflakeIdGenerator {
+
+    //起始时间 2024-01-01 00:00:00 UTC
+    public static final long EPOCH = 1704067200000L;
+
+    private static final int NODE_BITS = 10;
+    private static final int SEQUENCE_BITS = 12;
+    public static final long MAX_NODE_ID = (1L << NODE_BITS) - 1;
+
+    //订单号位数，long的最大值是19位，补零后字符串顺序与数值顺序一致
+    private static final int NUMBER_LENGTH = 19;
+
+    private final long nodeId;
+    private final long maxBackwardMillis;
+
+    //高位为相对EPOCH的时间戳，低12位为序号
+    private final AtomicLong state = new AtomicLong();
+
+    private final LongAdder generated = new LongAdder();
+    private final LongAdder borrowed = new LongAdder();
+
+    /**
+     * 从当前进程的启动时间开始计算
+     * @param nodeId            节点id，0 ~ 1023，每个实例不同
+     * @param maxBackwardMillis 允许的时钟回拨毫秒数
+     */
+    public SnowflakeIdGenerator(long nodeId, long maxBackwardMillis) {
+        this(nodeId, maxBackwardMillis, ManagementFactory.getRuntimeMXBean().getStartTime());
+    }
+
+    /**
+     * @param nodeId            节点id，0 ~ 1023，每个实例不同
+     * @param maxBackwardMillis 允许的时钟回拨毫秒数
+     * @param startMillis       进程启动时间，之前的进程用过的时间戳不会超过 startMillis + maxBackwardMillis
+     */
+    public SnowflakeIdGenerator(long nodeId, long maxBackwardMillis, long startMillis) {
+        if (nodeId < 0 || nodeId > MAX_NODE_ID) {
+            throw new IllegalArgumentException("节点id必须在0到" + MAX_NODE_ID + "之间：" + nodeId);
+        }
+        if (maxBackwardMillis < 0) {
+            throw new IllegalArgumentException("允许的时钟回拨不能小于0：" + maxBackwardMillis);
+        }
+        this.nodeId = nodeId;
+        this.maxBackwardMillis = maxBackwardMillis;
+        // 第一个id使用的时间戳，系统时钟超过之前沿用它递增
+        state.set((startMillis + maxBackwardMillis - EPOCH) << SEQUENCE_BITS);
+    }
+
+    /**
+     * 生成下一个id
+     * @return
+     */
+    public long nextId() {
+        while (true) {
+            long now = System.currentTimeMillis() - EPOCH;
+            long prev = state.get();
+            long prevTimestamp = prev >>> SEQUENCE_BITS;
+
+            long next;
+            if (now > prevTimestamp) {
+                next = now << SEQUENCE_BITS;
+            } else {
+                // 同一毫秒或时钟回拨：序号加1，序号用完时自然进位到下一毫秒
+                next = prev + 1;
+                long ahead = (next >>> SEQUENCE_BITS) - now;
+                if (ahead > maxBackwardMillis) {
+                    if (prevTimestamp - now > maxBackwardMillis) {
+                        throw new IllegalStateException("系统时钟回拨" + (prevTimestamp - now) + "毫秒，拒绝生成id");
+                    }
+                    // 领先的时间已到上限且序号用完，等系统时钟进入下一毫秒
+                    Thread.yield();
+                    continue;
+                }
+            }
+
+            if (state.compareAndSet(prev, next)) {
+                generated.increment();
+                if ((next >>> SEQUENCE_BITS) > now) {
+                    borrowed.increment();
+                }
+                long timestamp = next >>> SEQUENCE_BITS;
+                long sequence = next & ((1L << SEQUENCE_BITS) - 1);
+                return (timestamp << (NODE_BITS + SEQUENCE_BITS)) | (nodeId << SEQUENCE_BITS) | sequence;
+            }
+        }
+    }
+
+    /**
+     * 生成19位定长的订单号
+     * @return
+     */
+    public String nextNumber() {
+        char[] chars = new char[NUMBER_LENGTH];
+        long id = nextId();
+        for (int i = NUMBER_LENGTH - 1; i >= 0; i--) {
+            chars[i] = (char) ('0' + id % 10);
+            id /= 10;
+        }
+        return new String(chars);
+    }
+
+    public long getNodeId() {
+        return nodeId;
+    }
+
+    /**
+     * 已生成的id数
+     * @return
+     */
+    public long getGenerated() {
+        return generated.sum();
+    }
+
+    /**
+     * 时间戳领先系统时钟时生成的id数（序号用完或时钟回拨）
+     * @return
+     */
+    public long getBorrowed() {
+        return borrowed.sum();
+    }
+}
@@ -6,6 +6,7 @@ import lombok.Data;
 import lombok.NoArgsConstructor;
 
 import java.io.Serializable;
+import java.time.LocalDateTime;
 
 /**
  * 地址簿
@@ -58,4 +59,16 @@ public class AddressBook implements Serializable {
 
     //是否默认 0否 1是
     private Integer isDefault;
+
+    //经纬度坐标 lat,lng
+    private String location;
+
+    //距店铺的驾车距离（米）
+    private Integer distance;
+
+    //是否在配送范围内 0否 1是
+    private Integer inRange;
+
+    //配送范围计算时间，为空表示需要重新计算
+    private LocalDateTime geoTime;
 }
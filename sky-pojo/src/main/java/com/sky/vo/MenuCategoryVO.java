@@ -0,0 +1,36 @@
+package com.sky.vo;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.List;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class MenuCategoryVO implements Serializable {
+
+    private Long id;
+
+    //类型: 1菜品分类 2套餐分类
+    private Integer type;
+
+    //分类名称
+    private String name;
+
+    //顺序
+    private Integer sort;
+
+    //菜品分类下的菜品和口味
+    @Builder.Default
+    private List<DishVO> dishes = new ArrayList<>();
+
+    //套餐分类下的套餐和包含的菜品
+    @Builder.Default
+    private List<MenuSetmealVO> setmeals = new ArrayList<>();
+}
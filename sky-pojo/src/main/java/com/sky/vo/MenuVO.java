@@ -0,0 +1,24 @@
+package com.sky.vo;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 完整菜单：起售中的分类、菜品和套餐
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class MenuVO implements Serializable {
+
+    //分类，按排序字段排列
+    @Builder.Default
+    private List<MenuCategoryVO> categories = new ArrayList<>();
+}
@@ -0,0 +1,119 @@
+package com.sky.cache;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.annotation.JsonTypeInfo;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.databind.jsontype.BasicPolymorphicTypeValidator;
+import com.fasterxml.jackson.databind.jsontype.PolymorphicTypeValidator;
+import com.sky.json.JacksonObjectMapper;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.redis.serializer.JdkSerializationRedisSerializer;
+import org.springframework.data.redis.serializer.RedisSerializer;
+import org.springframework.data.redis.serializer.SerializationException;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.InputStream;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * redis值序列化器：按 JacksonObjectMapper 的日期格式写成紧凑的json，Object、接口和抽象类型的位置带类名以便还原
+ * 超过压缩阈值的json用gzip压缩（以 0x1F8B 开头）
+ * 读取时兼容旧的JDK序列化数据（以 0xACED 开头），旧数据在过期或重新写入后自然替换为json
+ */
+@Slf4j
+public class CompactJsonRedisSerializer implements RedisSerializer<Object> {
+
+    //JDK序列化数据的魔数
+    private static final byte JDK_MAGIC_0 = (byte) 0xAC;
+    private static final byte JDK_MAGIC_1 = (byte) 0xED;
+
+    //gzip数据的魔数
+    private static final byte GZIP_MAGIC_0 = (byte) 0x1F;
+    private static final byte GZIP_MAGIC_1 = (byte) 0x8B;
+
+    private final ObjectMapper objectMapper;
+    private final ObjectWriter objectWriter;
+    private final JdkSerializationRedisSerializer jdkSerializer;
+
+    //json超过这个字节数时压缩，小于0时不压缩
+    private final int compressThreshold;
+
+    //读取到的旧格式数据次数，降为0后可以去掉兼容逻辑
+    private final LongAdder legacyReads = new LongAdder();
+
+    /**
+     * @param classLoader 读取JDK序列化数据使用的类加载器
+     * @param compressThreshold json超过这个字节数时gzip压缩，小于0时不压缩
+     */
+    public CompactJsonRedisSerializer(ClassLoader classLoader, int compressThreshold) {
+        // 只允许还原项目和JDK常用类型，避免反序列化任意类
+        PolymorphicTypeValidator validator = BasicPolymorphicTypeValidator.builder()
+                .allowIfSubType("com.sky.")
+                .allowIfSubType("java.util.")
+                .allowIfSubType("java.lang.")
+                .allowIfSubType("java.math.")
+                .allowIfSubType("java.time.")
+                .build();
+
+        objectMapper = new JacksonObjectMapper();
+        objectMapper.disable(SerializationFeature.FAIL_ON_EMPTY_BEANS);
+        // 不写null字段；只有声明为Object、接口或抽象类的位置才写类名
+        objectMapper.setSerializationInclusion(JsonInclude.Include.NON_NULL);
+        objectMapper.activateDefaultTyping(validator, ObjectMapper.DefaultTyping.OBJECT_AND_NON_CONCRETE,
+                JsonTypeInfo.As.PROPERTY);
+        // 按Object写出，最外层也带上类名
+        objectWriter = objectMapper.writerFor(Object.class);
+        jdkSerializer = new JdkSerializationRedisSerializer(classLoader);
+        this.compressThreshold = compressThreshold;
+    }
+
+    @Override
+    public byte[] serialize(Object value) throws SerializationException {
+        if (value == null) {
+            return new byte[0];
+        }
+        try {
+            byte[] json = objectWriter.writeValueAsBytes(value);
+            if (compressThreshold < 0 || json.length <= compressThreshold) {
+                return json;
+            }
+            ByteArrayOutputStream out = new ByteArrayOutputStream(json.length / 4 + 64);
+            try (GZIPOutputStream gzipOut = new GZIPOutputStream(out)) {
+                gzipOut.write(json);
+            }
+            return out.toByteArray();
+        } catch (Exception e) {
+            throw new SerializationException("redis值序列化失败：" + value.getClass().getName(), e);
+        }
+    }
+
+    @Override
+    public Object deserialize(byte[] bytes) throws SerializationException {
+        if (bytes == null || bytes.length == 0) {
+            return null;
+        }
+        if (bytes.length > 1 && bytes[0] == JDK_MAGIC_0 && bytes[1] == JDK_MAGIC_1) {
+            legacyReads.increment();
+            return jdkSerializer.deserialize(bytes);
+        }
+        try {
+            if (bytes.length > 1 && bytes[0] == GZIP_MAGIC_0 && bytes[1] == GZIP_MAGIC_1) {
+                try (InputStream in = new GZIPInputStream(new ByteArrayInputStream(bytes))) {
+                    return objectMapper.readValue(in, Object.class);
+                }
+            }
+            return objectMapper.readValue(bytes, Object.class);
+        } catch (Exception e) {
+            throw new SerializationException("redis值反序列化失败", e);
+        }
+    }
+
+    public long getLegacyReads() {
+        return legacyReads.sum();
+    }
+}
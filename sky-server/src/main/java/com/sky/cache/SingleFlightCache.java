@@ -0,0 +1,190 @@
+package com.sky.cache;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.cache.Cache;
+import org.springframework.cache.support.AbstractValueAdaptingCache;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 合并并发加载的缓存装饰器，配合 @Cacheable(sync = true) 使用
+ * 同一个key同时只有一个线程执行方法，其他线程等待同一个结果；
+ * 开启stale-while-revalidate时，缓存被清理后先返回上一次的值，后台重新加载；
+ * 同时统计命中、未命中、写入、清理次数和加载耗时
+ */
+@Slf4j
+public class SingleFlightCache implements Cache {
+
+    private final Cache delegate;
+    private final Executor executor;
+
+    //缓存被清理后仍可返回的旧值，为null时不开启stale-while-revalidate
+    private final LocalCache<Object, Object> staleCache;
+
+    private final SingleFlight<Object, Object> singleFlight = new SingleFlight<>();
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder puts = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+    private final LongAdder loadNanos = new LongAdder();
+
+    /**
+     * @param delegate 实际的缓存
+     * @param executor 后台重新加载使用的线程池
+     * @param staleTtlMillis 旧值的保留时间（毫秒），小于等于0时不开启stale-while-revalidate
+     * @param staleMaxSize 旧值的最大条目数
+     */
+    public SingleFlightCache(Cache delegate, Executor executor, long staleTtlMillis, int staleMaxSize) {
+        this.delegate = delegate;
+        this.executor = executor;
+        this.staleCache = staleTtlMillis > 0
+                ? new LocalCache<>(delegate.getName() + "Stale", staleTtlMillis, staleMaxSize) : null;
+    }
+
+    @Override
+    public String getName() {
+        return delegate.getName();
+    }
+
+    @Override
+    public Object getNativeCache() {
+        return delegate.getNativeCache();
+    }
+
+    @Override
+    public ValueWrapper get(Object key) {
+        return record(delegate.get(key));
+    }
+
+    @Override
+    public <T> T get(Object key, Class<T> type) {
+        T value = delegate.get(key, type);
+        (value != null ? hits : misses).increment();
+        return value;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public <T> T get(Object key, Callable<T> valueLoader) {
+        ValueWrapper wrapper = record(delegate.get(key));
+        if (wrapper != null) {
+            return (T) wrapper.get();
+        }
+
+        if (staleCache != null) {
+            Object stale = staleCache.getIfPresent(key);
+            if (stale != null) {
+                // 先返回旧值，后台重新加载
+                singleFlight.executeAsync(key, () -> load(key, valueLoader), executor)
+                        .whenComplete((result, e) -> {
+                            if (e != null) {
+                                log.warn("后台加载缓存失败：{}::{}", getName(), key, e);
+                            }
+                        });
+                return (T) stale;
+            }
+        }
+
+        return (T) singleFlight.execute(key, () -> load(key, valueLoader));
+    }
+
+    @Override
+    public void put(Object key, Object value) {
+        delegate.put(key, value);
+        puts.increment();
+        if (staleCache != null) {
+            staleCache.put(key, value);
+        }
+    }
+
+    @Override
+    public ValueWrapper putIfAbsent(Object key, Object value) {
+        return delegate.putIfAbsent(key, value);
+    }
+
+    @Override
+    public void evict(Object key) {
+        delegate.evict(key);
+        evictions.increment();
+    }
+
+    @Override
+    public boolean evictIfPresent(Object key) {
+        evictions.increment();
+        return delegate.evictIfPresent(key);
+    }
+
+    @Override
+    public void clear() {
+        delegate.clear();
+        evictions.increment();
+    }
+
+    @Override
+    public boolean invalidate() {
+        evictions.increment();
+        return delegate.invalidate();
+    }
+
+    /**
+     * 再次检查缓存，仍然不存在时执行方法并写入缓存
+     * @param key
+     * @param valueLoader
+     * @return
+     */
+    private Object load(Object key, Callable<?> valueLoader) {
+        ValueWrapper wrapper = delegate.get(key);
+        if (wrapper != null) {
+            return wrapper.get();
+        }
+
+        Object value;
+        long start = System.nanoTime();
+        try {
+            value = valueLoader.call();
+        } catch (Exception e) {
+            throw new ValueRetrievalException(key, valueLoader, e);
+        } finally {
+            loadNanos.add(System.nanoTime() - start);
+        }
+        // 不允许缓存null值时只返回结果
+        if (value != null || !(delegate instanceof AbstractValueAdaptingCache)
+                || ((AbstractValueAdaptingCache) delegate).isAllowNullValues()) {
+            put(key, value);
+        }
+        return value;
+    }
+
+    /**
+     * 命中、未命中、写入、清理次数，实际加载次数、被合并的加载次数和平均加载耗时
+     * @return
+     */
+    public Map<String, Object> getStats() {
+        long hitCount = hits.sum();
+        long missCount = misses.sum();
+        long loads = singleFlight.getLoads();
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("hits", hitCount);
+        stats.put("misses", missCount);
+        stats.put("hitRatio", hitCount + missCount == 0 ? 0.0 : (double) hitCount / (hitCount + missCount));
+        stats.put("puts", puts.sum());
+        stats.put("evictions", evictions.sum());
+        stats.put("loads", loads);
+        stats.put("coalesced", singleFlight.getCoalesced());
+        stats.put("avgLoadMillis", loads == 0 ? 0.0 : loadNanos.sum() / 1e6 / loads);
+        if (staleCache != null) {
+            stats.put("stale", staleCache.getStats());
+        }
+        return stats;
+    }
+
+    private ValueWrapper record(ValueWrapper wrapper) {
+        (wrapper != null ? hits : misses).increment();
+        return wrapper;
+    }
+}
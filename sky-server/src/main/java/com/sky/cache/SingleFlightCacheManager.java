@@ -0,0 +1,67 @@
+package com.sky.cache;
+
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+
+/**
+ * 为每个缓存加上 SingleFlightCache 装饰，汇总各缓存的统计数据
+ */
+public class SingleFlightCacheManager implements CacheManager {
+
+    private final CacheManager delegate;
+    private final Executor executor;
+
+    //开启stale-while-revalidate的缓存名称
+    private final Set<String> staleWhileRevalidateCaches;
+    private final long staleTtlMillis;
+    private final int staleMaxSize;
+
+    private final Map<String, SingleFlightCache> caches = new ConcurrentHashMap<>();
+
+    public SingleFlightCacheManager(CacheManager delegate, Executor executor, Set<String> staleWhileRevalidateCaches,
+                                    long staleTtlMillis, int staleMaxSize) {
+        this.delegate = delegate;
+        this.executor = executor;
+        this.staleWhileRevalidateCaches = staleWhileRevalidateCaches == null
+                ? Collections.emptySet() : staleWhileRevalidateCaches;
+        this.staleTtlMillis = staleTtlMillis;
+        this.staleMaxSize = staleMaxSize;
+    }
+
+    @Override
+    public Cache getCache(String name) {
+        Cache cache = caches.get(name);
+        if (cache != null) {
+            return cache;
+        }
+        Cache target = delegate.getCache(name);
+        if (target == null) {
+            return null;
+        }
+        long ttl = staleWhileRevalidateCaches.contains(name) ? staleTtlMillis : 0;
+        return caches.computeIfAbsent(name, n -> new SingleFlightCache(target, executor, ttl, staleMaxSize));
+    }
+
+    @Override
+    public Collection<String> getCacheNames() {
+        return delegate.getCacheNames();
+    }
+
+    /**
+     * 各缓存的统计数据
+     * @return
+     */
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new TreeMap<>();
+        caches.forEach((name, cache) -> stats.put(name, cache.getStats()));
+        return stats;
+    }
+}
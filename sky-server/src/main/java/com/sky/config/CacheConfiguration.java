@@ -0,0 +1,104 @@
+package com.sky.config;
+
+import com.sky.cache.CompactJsonRedisSerializer;
+import com.sky.cache.SingleFlightCacheManager;
+import com.sky.properties.RedisCacheProperties;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.data.redis.cache.BatchStrategies;
+import org.springframework.data.redis.cache.RedisCacheConfiguration;
+import org.springframework.data.redis.cache.RedisCacheManager;
+import org.springframework.data.redis.cache.RedisCacheWriter;
+import org.springframework.data.redis.connection.RedisConnectionFactory;
+import org.springframework.data.redis.serializer.JdkSerializationRedisSerializer;
+import org.springframework.data.redis.serializer.RedisSerializationContext;
+import org.springframework.data.redis.serializer.RedisSerializer;
+
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Executor;
+
+/**
+ * Spring Cache 配置
+ * 每个缓存的过期时间、null值策略、key前缀和序列化方式在 sky.cache.caches 中声明，
+ * redis缓存外层合并同一个key的并发加载并统计命中率
+ */
+@Configuration
+@Slf4j
+public class CacheConfiguration {
+
+    @Value("${sky.redis.compress-threshold:1024}")
+    private int compressThreshold;
+
+    @Bean
+    public SingleFlightCacheManager cacheManager(RedisConnectionFactory redisConnectionFactory,
+                                                 RedisSerializer<Object> redisValueSerializer,
+                                                 @Qualifier("applicationTaskExecutor") Executor executor,
+                                                 RedisCacheProperties redisCacheProperties) {
+        log.info("开始创建缓存管理器：{}", redisCacheProperties.getCaches().keySet());
+        RedisCacheConfiguration defaults = buildConfiguration(redisCacheProperties.getDefaultTtl(),
+                redisCacheProperties.isCacheNullValues(), redisCacheProperties.getKeyPrefix(), redisValueSerializer);
+
+        Map<String, RedisCacheConfiguration> configurations = new HashMap<>();
+        Set<String> staleCaches = new HashSet<>();
+        redisCacheProperties.getCaches().forEach((name, spec) -> {
+            configurations.put(name, buildConfiguration(
+                    spec.getTtl() != null ? spec.getTtl() : redisCacheProperties.getDefaultTtl(),
+                    spec.getCacheNullValues() != null ? spec.getCacheNullValues() : redisCacheProperties.isCacheNullValues(),
+                    spec.getKeyPrefix() != null ? spec.getKeyPrefix() : redisCacheProperties.getKeyPrefix(),
+                    getSerializer(spec.getSerializer(), redisValueSerializer)));
+            if (spec.isStaleWhileRevalidate()) {
+                staleCaches.add(name);
+            }
+        });
+
+        // allEntries清理时用SCAN分批查找key，不使用阻塞redis的KEYS
+        RedisCacheWriter cacheWriter = RedisCacheWriter.nonLockingRedisCacheWriter(redisConnectionFactory,
+                BatchStrategies.scan(1000));
+        RedisCacheManager redisCacheManager = RedisCacheManager.builder(cacheWriter)
+                .cacheDefaults(defaults)
+                .withInitialCacheConfigurations(configurations)
+                .build();
+        redisCacheManager.afterPropertiesSet();
+        return new SingleFlightCacheManager(redisCacheManager, executor, staleCaches,
+                redisCacheProperties.getStaleTtl(), redisCacheProperties.getStaleMaxSize());
+    }
+
+    private RedisCacheConfiguration buildConfiguration(long ttlSeconds, boolean cacheNullValues, String keyPrefix,
+                                                       RedisSerializer<Object> serializer) {
+        RedisCacheConfiguration configuration = RedisCacheConfiguration.defaultCacheConfig()
+                .serializeValuesWith(RedisSerializationContext.SerializationPair.fromSerializer(serializer));
+        if (ttlSeconds > 0) {
+            configuration = configuration.entryTtl(Duration.ofSeconds(ttlSeconds));
+        }
+        if (!cacheNullValues) {
+            configuration = configuration.disableCachingNullValues();
+        }
+        if (keyPrefix != null && !keyPrefix.isEmpty()) {
+            configuration = configuration.prefixCacheNameWith(keyPrefix);
+        }
+        return configuration;
+    }
+
+    /**
+     * 单个缓存的序列化方式，未配置时使用 redisTemplate 相同的序列化器
+     * @param type
+     * @param defaultSerializer
+     * @return
+     */
+    private RedisSerializer<Object> getSerializer(String type, RedisSerializer<Object> defaultSerializer) {
+        if ("jdk".equalsIgnoreCase(type)) {
+            return new JdkSerializationRedisSerializer(getClass().getClassLoader());
+        }
+        if ("json".equalsIgnoreCase(type)) {
+            return new CompactJsonRedisSerializer(getClass().getClassLoader(), compressThreshold);
+        }
+        return defaultSerializer;
+    }
+}
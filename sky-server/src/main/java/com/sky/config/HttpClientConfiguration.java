@@ -0,0 +1,32 @@
+package com.sky.config;
+
+import com.sky.properties.HttpClientProperties;
+import com.sky.utils.HttpClientUtil;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.InitializingBean;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * 配置类，按配置初始化HttpClientUtil的共享连接池，应用关闭时释放连接
+ */
+@Configuration
+@Slf4j
+public class HttpClientConfiguration implements InitializingBean, DisposableBean {
+
+    @Autowired
+    private HttpClientProperties httpClientProperties;
+
+    @Override
+    public void afterPropertiesSet() {
+        log.info("开始初始化http连接池：{}", httpClientProperties);
+        HttpClientUtil.configure(httpClientProperties);
+    }
+
+    @Override
+    public void destroy() {
+        log.info("关闭http连接池");
+        HttpClientUtil.shutdown();
+    }
+}
@@ -0,0 +1,32 @@
+package com.sky.config;
+
+import com.sky.utils.SnowflakeIdGenerator;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.util.StringUtils;
+
+/**
+ * 配置类，用于创建订单号生成器
+ */
+@Configuration
+@Slf4j
+public class OrderNumberConfiguration {
+
+    /**
+     * 节点id没有默认值，未配置时启动失败，避免多个实例使用同一个节点id生成重复的订单号
+     * @param nodeId
+     * @param maxBackwardMillis
+     * @return
+     */
+    @Bean
+    public SnowflakeIdGenerator orderNumberGenerator(@Value("${sky.order.node-id:}") String nodeId,
+                                                     @Value("${sky.order.max-clock-backward:5000}") long maxBackwardMillis) {
+        if (!StringUtils.hasText(nodeId)) {
+            throw new IllegalStateException("未配置订单号生成器的节点id sky.order.node-id（环境变量 SKY_ORDER_NODE_ID），每个实例必须不同");
+        }
+        log.info("开始创建订单号生成器，节点id：{}", nodeId);
+        return new SnowflakeIdGenerator(Long.parseLong(nodeId.trim()), maxBackwardMillis);
+    }
+}
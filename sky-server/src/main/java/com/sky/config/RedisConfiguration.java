@@ -1,23 +1,61 @@
 package com.sky.config;
 
+import com.sky.cache.CompactJsonRedisSerializer;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.data.redis.connection.RedisConnectionFactory;
 import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+import org.springframework.data.redis.serializer.JdkSerializationRedisSerializer;
+import org.springframework.data.redis.serializer.RedisSerializer;
 import org.springframework.data.redis.serializer.StringRedisSerializer;
 
 @Configuration
 @Slf4j
 public class RedisConfiguration {
+    /**
+     * redis值序列化器，json：紧凑json并兼容读取旧的JDK序列化数据；jdk：JDK序列化
+     * @param type
+     * @param compressThreshold
+     * @return
+     */
     @Bean
-    public RedisTemplate<String, Object> redisTemplate(RedisConnectionFactory redisConnectionFactory) {
+    public RedisSerializer<Object> redisValueSerializer(@Value("${sky.redis.value-serializer:json}") String type,
+                                                        @Value("${sky.redis.compress-threshold:1024}") int compressThreshold) {
+        log.info("redis值序列化方式：{}", type);
+        if ("jdk".equalsIgnoreCase(type)) {
+            return new JdkSerializationRedisSerializer(getClass().getClassLoader());
+        }
+        return new CompactJsonRedisSerializer(getClass().getClassLoader(), compressThreshold);
+    }
+
+    @Bean
+    public RedisTemplate<String, Object> redisTemplate(RedisConnectionFactory redisConnectionFactory,
+                                                       RedisSerializer<Object> redisValueSerializer) {
         log.info("开始创建redis模板对象……");
         RedisTemplate redisTemplate = new RedisTemplate();
         //设置redis的连接工厂对象
         redisTemplate.setConnectionFactory(redisConnectionFactory);
         //设置redis key的序列化器
         redisTemplate.setKeySerializer(new StringRedisSerializer());
+        redisTemplate.setHashKeySerializer(new StringRedisSerializer());
+        //设置redis value的序列化器
+        redisTemplate.setValueSerializer(redisValueSerializer);
+        redisTemplate.setHashValueSerializer(redisValueSerializer);
         return redisTemplate;
     }
+
+    /**
+     * redis消息监听容器，用于接收缓存失效通知
+     * @param redisConnectionFactory
+     * @return
+     */
+    @Bean
+    public RedisMessageListenerContainer redisMessageListenerContainer(RedisConnectionFactory redisConnectionFactory) {
+        RedisMessageListenerContainer container = new RedisMessageListenerContainer();
+        container.setConnectionFactory(redisConnectionFactory);
+        return container;
+    }
 }
@@ -0,0 +1,55 @@
+package com.sky.controller.admin;
+
+import com.sky.cache.CompactJsonRedisSerializer;
+import com.sky.cache.SingleFlightCacheManager;
+import com.sky.result.Result;
+import com.sky.service.DishCacheService;
+import com.sky.service.IdempotencyService;
+import io.swagger.annotations.Api;
+import io.swagger.annotations.ApiOperation;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.redis.serializer.RedisSerializer;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * 缓存统计
+ */
+@RestController
+@RequestMapping("/admin/cache")
+@Api(tags = "缓存相关接口")
+@Slf4j
+public class CacheController {
+
+    @Autowired
+    private SingleFlightCacheManager cacheManager;
+    @Autowired
+    private DishCacheService dishCacheService;
+    @Autowired
+    private IdempotencyService idempotencyService;
+    @Autowired
+    private RedisSerializer<Object> redisValueSerializer;
+
+    /**
+     * 各缓存的命中、未命中、清理次数和加载耗时
+     * @return
+     */
+    @GetMapping("/stats")
+    @ApiOperation("缓存统计")
+    public Result<Map<String, Object>> stats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("caches", cacheManager.getStats());
+        stats.put("dish", dishCacheService.getStats());
+        stats.put("idempotency", idempotencyService.getStats());
+        if (redisValueSerializer instanceof CompactJsonRedisSerializer) {
+            // 读取到旧的JDK序列化数据的次数
+            stats.put("legacyReads", ((CompactJsonRedisSerializer) redisValueSerializer).getLegacyReads());
+        }
+        return Result.success(stats);
+    }
+}
@@ -2,16 +2,17 @@ package com.sky.controller.admin;
 
 import com.sky.dto.DishDTO;
 import com.sky.result.Result;
+import com.sky.service.DishCacheService;
 import com.sky.service.DishService;
+import com.sky.service.MenuService;
 import io.swagger.annotations.Api;
 import io.swagger.annotations.ApiOperation;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.cache.annotation.CacheEvict;
 import org.springframework.web.bind.annotation.*;
 
 import java.util.List;
-import java.util.Set;
 
 /**
  * 菜品管理
@@ -25,18 +26,20 @@ public class DishController {
     @Autowired
     private DishService dishService;
     @Autowired
-    private RedisTemplate<String, Object> redisTemplate;
+    private DishCacheService dishCacheService;
+    @Autowired
+    private MenuService menuService;
 
     /**
      * 删除之前的缓存
-     * 后台新增/修改/删除/起售停售会让数据库里的菜品变了，但 Redis 里还留着旧数据。
+     * 后台新增/修改/删除/起售停售会让数据库里的菜品变了，但 Redis 和各节点的进程内缓存里还留着旧数据。
      * 不清理的话，小程序会一直读到旧缓存。
-     * 所以在后台改动菜品后，必须把 dish_* 相关缓存清掉，让下次用户查询时重新从数据库加载最新数据。
-     * @param pattern
+     * 所以在后台改动菜品后，必须把相关缓存清掉，让下次用户查询时重新从数据库加载最新数据。
+     * @param categoryId 分类id，为null时清理全部分类
      */
-    private void cleanCache(String pattern) {
-        Set<String> keys = redisTemplate.keys(pattern);
-        redisTemplate.delete(keys);
+    private void cleanCache(Long categoryId) {
+        dishCacheService.evict(categoryId);
+        menuService.invalidate();
     }
 
     /**
@@ -51,8 +54,7 @@ public class DishController {
         log.info("新增菜品：{}", dishDTO);
         dishService.saveWithFlavor(dishDTO);
         // 清理原有的缓存数据
-        String key = "dish_" + dishDTO.getCategoryId();
-        cleanCache(key);
+        cleanCache(dishDTO.getCategoryId());
         return Result.success();
     }
     /**
@@ -66,8 +68,8 @@ public class DishController {
     public Result<String> delete(@RequestParam List<Long> ids) {
         log.info("菜品批量删除：{}", ids);
         dishService.deleteBatch(ids);
-        //将所有的菜品缓存数据清理掉，所有以dish_开头的key
-        cleanCache("dish_*");
+        //将所有的菜品缓存数据清理掉
+        cleanCache(null);
         return Result.success();
     }
 
@@ -79,11 +81,12 @@ public class DishController {
      */
     @PutMapping
     @ApiOperation("修改菜品")
+    @CacheEvict(cacheNames = "setmealDishCache",allEntries = true)//套餐包含的菜品带有菜品图片和描述
     public Result<String> update(@RequestBody DishDTO dishDTO) {
         log.info("修改菜品：{}",  dishDTO);
         dishService.updateWithFlavor(dishDTO);
-        //将所有的菜品缓存数据清理掉，所有以dish_开头的key
-        cleanCache("dish_*");
+        //将所有的菜品缓存数据清理掉
+        cleanCache(null);
 
         return Result.success();
     }
@@ -98,8 +101,8 @@ public class DishController {
     @ApiOperation("菜品起售停售")
     public Result<String> startOrStop(@PathVariable Integer status, @RequestParam Long id) {
         dishService.startOrStop(status, id);
-        //将所有的菜品缓存数据清理掉，所有以dish_开头的key
-        cleanCache("dish_*");
+        //将所有的菜品缓存数据清理掉
+        cleanCache(null);
         return Result.success();
     }
 }
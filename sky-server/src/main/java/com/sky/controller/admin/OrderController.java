@@ -7,6 +7,8 @@ import com.sky.dto.OrdersRejectionDTO;
 import com.sky.result.PageResult;
 import com.sky.result.Result;
 import com.sky.service.OrderService;
+import com.sky.service.OrderTimeoutService;
+import com.sky.task.OrderTask;
 import com.sky.vo.OrderStatisticsVO;
 import com.sky.vo.OrderVO;
 import io.swagger.annotations.Api;
@@ -20,6 +22,9 @@ import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RestController;
 
+import java.util.LinkedHashMap;
+import java.util.Map;
+
 /**
  * 订单管理
  */
@@ -31,6 +36,10 @@ public class OrderController {
 
     @Autowired
     private OrderService orderService;
+    @Autowired
+    private OrderTask orderTask;
+    @Autowired
+    private OrderTimeoutService orderTimeoutService;
 
     /**
      * 订单搜索
@@ -129,4 +138,17 @@ public class OrderController {
         orderService.complete(id);
         return Result.success();
     }
+
+    /**
+     * 订单定时处理统计：超时取消、自动完成的处理量和耗时，以及超时队列
+     *
+     * @return
+     */
+    @GetMapping("/taskStats")
+    @ApiOperation("订单定时处理统计")
+    public Result<Map<String, Object>> taskStats() {
+        Map<String, Object> stats = new LinkedHashMap<>(orderTask.getStats());
+        stats.put("timeoutQueue", orderTimeoutService.getStats());
+        return Result.success(stats);
+    }
 }
@@ -1,7 +1,10 @@
 package com.sky.controller.admin;
 
 import com.sky.result.Result;
+import com.sky.service.BusinessStatsService;
+import com.sky.service.ExportJobService;
 import com.sky.service.ReportService;
+import com.sky.vo.ExportJobVO;
 import com.sky.vo.OrderReportVO;
 import com.sky.vo.SalesTop10ReportVO;
 import com.sky.vo.TurnoverReportVO;
@@ -12,10 +15,14 @@ import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
 
 import java.time.LocalDate;
+import javax.servlet.http.HttpServletRequest;
 import javax.servlet.http.HttpServletResponse;
 
 /**
@@ -28,6 +35,10 @@ import javax.servlet.http.HttpServletResponse;
 public class ReportController {
     @Autowired
     private ReportService reportService;
+    @Autowired
+    private BusinessStatsService businessStatsService;
+    @Autowired
+    private ExportJobService exportJobService;
     /**
      * 统计营业额数据
      * GET
@@ -95,12 +106,70 @@ public class ReportController {
     }
 
     /**
-     * 导出运营数据报表
+     * 根据订单和用户数据重建每日营业数据汇总，日期区间不能超过导出的最大天数
+     * @param begin
+     * @param end
+     * @return
+     */
+    @PostMapping("/rebuildStats")
+    @ApiOperation("重建每日营业数据汇总")
+    public Result rebuildStats(
+            @RequestParam @DateTimeFormat(pattern = "yyyy-MM-dd") LocalDate begin,
+            @RequestParam @DateTimeFormat(pattern = "yyyy-MM-dd") LocalDate end
+    ) {
+        log.info("重建每日营业数据汇总：{} 至 {}", begin, end);
+        businessStatsService.rebuild(begin, end);
+        return Result.success();
+    }
+
+    /**
+     * 导出运营数据报表，不指定日期时导出近30天
+     * @param begin
+     * @param end
      * @param response
      */
     @GetMapping("/export")
     @ApiOperation("导出运营数据报表")
-    public void export(HttpServletResponse response) {
-        reportService.exportBusinessData(response);
+    public void export(
+            @DateTimeFormat(pattern = "yyyy-MM-dd") LocalDate begin,
+            @DateTimeFormat(pattern = "yyyy-MM-dd") LocalDate end,
+            HttpServletResponse response) {
+        reportService.exportBusinessData(begin, end, response);
+    }
+
+    /**
+     * 提交运营数据报表异步导出任务，不指定日期时导出近30天
+     * @param begin
+     * @param end
+     * @return
+     */
+    @PostMapping("/export/jobs")
+    @ApiOperation("提交运营数据报表导出任务")
+    public Result<ExportJobVO> submitExportJob(
+            @DateTimeFormat(pattern = "yyyy-MM-dd") LocalDate begin,
+            @DateTimeFormat(pattern = "yyyy-MM-dd") LocalDate end) {
+        return Result.success(exportJobService.submitBusinessExport(begin, end));
+    }
+
+    /**
+     * 查询导出任务进度
+     * @param jobId
+     * @return
+     */
+    @GetMapping("/export/jobs/{jobId}")
+    @ApiOperation("查询报表导出任务进度")
+    public Result<ExportJobVO> getExportJob(@PathVariable String jobId) {
+        return Result.success(exportJobService.getJob(jobId));
+    }
+
+    /**
+     * 下载导出完成的报表
+     * @param jobId
+     * @param response
+     */
+    @GetMapping("/export/jobs/{jobId}/file")
+    @ApiOperation("下载导出的运营数据报表")
+    public void downloadExportJob(@PathVariable String jobId, HttpServletRequest request, HttpServletResponse response) {
+        exportJobService.download(jobId, request, response);
     }
 }
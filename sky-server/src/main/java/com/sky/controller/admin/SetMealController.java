@@ -4,6 +4,7 @@ import com.sky.dto.SetmealDTO;
 import com.sky.dto.SetmealPageQueryDTO;
 import com.sky.result.PageResult;
 import com.sky.result.Result;
+import com.sky.service.MenuService;
 import com.sky.service.SetMealService;
 import com.sky.vo.SetmealVO;
 import io.swagger.annotations.Api;
@@ -11,6 +12,7 @@ import io.swagger.annotations.ApiOperation;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.cache.annotation.CacheEvict;
+import org.springframework.cache.annotation.Caching;
 import org.springframework.web.bind.annotation.*;
 
 import java.util.List;
@@ -29,6 +31,8 @@ import java.util.List;
 public class SetMealController {
     @Autowired
     private SetMealService setMealService;
+    @Autowired
+    private MenuService menuService;
 
     /**
      * 新增套餐
@@ -41,6 +45,7 @@ public class SetMealController {
     @CacheEvict(cacheNames = "setmealCache",key = "#setmealDTO.categoryId")//key: setmealCache::100
     public Result save(@RequestBody SetmealDTO setmealDTO) {
         setMealService.saveWithDish(setmealDTO);
+        menuService.invalidate();
         return Result.success();
     }
     /**
@@ -62,9 +67,13 @@ public class SetMealController {
      * */
     @DeleteMapping
     @ApiOperation("批量删除套餐")
-    @CacheEvict(cacheNames = "setmealCache",allEntries = true)
+    @Caching(evict = {
+            @CacheEvict(cacheNames = "setmealCache",allEntries = true),
+            @CacheEvict(cacheNames = "setmealDishCache",allEntries = true)
+    })
     public Result delete(@RequestParam List<Long> ids) {
         setMealService.deleteBatch(ids);
+        menuService.invalidate();
         return Result.success();
     }
 
@@ -90,9 +99,13 @@ public class SetMealController {
      */
     @PutMapping
     @ApiOperation("修改套餐")
-    @CacheEvict(cacheNames = "setmealCache",allEntries = true)
+    @Caching(evict = {
+            @CacheEvict(cacheNames = "setmealCache",allEntries = true),
+            @CacheEvict(cacheNames = "setmealDishCache",key = "#setmealDTO.id")
+    })
     public Result update(@RequestBody SetmealDTO setmealDTO) {
         setMealService.update(setmealDTO);
+        menuService.invalidate();
         return Result.success();
     }
     /**套餐起停售状态
@@ -106,6 +119,7 @@ public class SetMealController {
     @CacheEvict(cacheNames = "setmealCache",allEntries = true)
     public Result startOrStop(@PathVariable Integer status, Long id) {
         setMealService.startOrStop(status, id);
+        menuService.invalidate();
         return Result.success();
     }
 }
@@ -1,20 +1,15 @@
 package com.sky.controller.user;
 
-import com.sky.constant.StatusConstant;
-import com.sky.dto.DishDTO;
-import com.sky.entity.Dish;
 import com.sky.result.Result;
-import com.sky.service.DishService;
+import com.sky.service.DishCacheService;
 import com.sky.vo.DishVO;
 import io.swagger.annotations.Api;
 import io.swagger.annotations.ApiOperation;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.data.redis.core.RedisTemplate;
 import org.springframework.web.bind.annotation.*;
 
 import java.util.List;
-import java.util.Set;
 
 @RestController("userDishController")
 @RequestMapping("/user/dish")
@@ -23,9 +18,7 @@ import java.util.Set;
 public class DishController {
 
     @Autowired
-    private DishService dishService;
-    @Autowired
-    private RedisTemplate redisTemplate;
+    private DishCacheService dishCacheService;
 
     /**
      * 根据分类id查询菜品
@@ -35,22 +28,8 @@ public class DishController {
     @GetMapping("/list")
     @ApiOperation("根据分类id查询菜品")
     public Result<List<DishVO>> list(Long categoryId) {
-        // 构造redis的key dish_分类id
-        String key = "dish_" + categoryId;
-
-        // 查询redis中是否存在菜品数据
-        List<DishVO> list = (List<DishVO>) redisTemplate.opsForValue().get(key);
-        if(list != null && list.size() > 0) {
-            return Result.success(list);
-        }
-
-        Dish dish = new Dish();
-        dish.setCategoryId(categoryId);
-        dish.setStatus(StatusConstant.ENABLE);
-
-        // 如果不存在就查询 MySQL，将查询到的数据放到 redis
-        list = dishService.listWithFlavor(dish);
-        redisTemplate.opsForValue().set(key, list);
+        // 依次查询进程内缓存、redis、数据库
+        List<DishVO> list = dishCacheService.listByCategoryId(categoryId);
         return Result.success(list);
     }
 
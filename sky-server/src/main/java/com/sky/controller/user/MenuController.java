@@ -0,0 +1,34 @@
+package com.sky.controller.user;
+
+import com.sky.service.MenuService;
+import io.swagger.annotations.Api;
+import io.swagger.annotations.ApiOperation;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+@RestController("userMenuController")
+@RequestMapping("/user/menu")
+@Slf4j
+@Api(tags = "C端-菜单接口")
+public class MenuController {
+
+    @Autowired
+    private MenuService menuService;
+
+    /**
+     * 一次返回起售中的分类、菜品和套餐，菜单未变化时返回304
+     * @param request
+     * @param response
+     */
+    @GetMapping
+    @ApiOperation("查询完整菜单")
+    public void menu(HttpServletRequest request, HttpServletResponse response) {
+        menuService.writeMenu(request, response);
+    }
+}
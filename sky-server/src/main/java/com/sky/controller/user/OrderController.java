@@ -1,9 +1,11 @@
 package com.sky.controller.user;
 
+import com.sky.context.BaseContext;
 import com.sky.dto.OrdersPaymentDTO;
 import com.sky.dto.OrdersSubmitDTO;
 import com.sky.result.PageResult;
 import com.sky.result.Result;
+import com.sky.service.IdempotencyService;
 import com.sky.service.OrderService;
 import com.sky.vo.OrderPaymentVO;
 import com.sky.vo.OrderSubmitVO;
@@ -12,6 +14,7 @@ import io.swagger.annotations.Api;
 import io.swagger.annotations.ApiOperation;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.util.StringUtils;
 import org.springframework.web.bind.annotation.*;
 
 /**
@@ -25,18 +28,29 @@ public class OrderController {
 
     @Autowired
     private OrderService orderService;
+    @Autowired
+    private IdempotencyService idempotencyService;
 
     /**
      * 用户下单
+     * 请求头带 Idempotency-Key 时，同一个key的重复提交直接返回第一次下单的结果
      *
      * @param ordersSubmitDTO
+     * @param idempotencyKey
      * @return
      */
     @PostMapping("/submit")
     @ApiOperation("用户下单")
-    public Result<OrderSubmitVO> submit(@RequestBody OrdersSubmitDTO ordersSubmitDTO) {
-        log.info("用户下单：{}", ordersSubmitDTO);
-        OrderSubmitVO orderSubmitVO = orderService.submitOrder(ordersSubmitDTO);
+    public Result<OrderSubmitVO> submit(@RequestBody OrdersSubmitDTO ordersSubmitDTO,
+                                        @RequestHeader(value = "Idempotency-Key", required = false) String idempotencyKey) {
+        log.info("用户下单：{}，幂等key：{}", ordersSubmitDTO, idempotencyKey);
+        if (!StringUtils.hasText(idempotencyKey)) {
+            return Result.success(orderService.submitOrder(ordersSubmitDTO));
+        }
+
+        String key = "order_submit_" + BaseContext.getCurrentId() + "_" + idempotencyKey;
+        OrderSubmitVO orderSubmitVO = idempotencyService.execute(key, OrderSubmitVO.class,
+                () -> orderService.submitOrder(ordersSubmitDTO));
         return Result.success(orderSubmitVO);
     }
 
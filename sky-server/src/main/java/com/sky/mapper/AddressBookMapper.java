@@ -4,6 +4,7 @@ import com.sky.entity.AddressBook;
 import org.apache.ibatis.annotations.Delete;
 import org.apache.ibatis.annotations.Insert;
 import org.apache.ibatis.annotations.Mapper;
+import org.apache.ibatis.annotations.Options;
 import org.apache.ibatis.annotations.Select;
 import org.apache.ibatis.annotations.Update;
 
@@ -28,6 +29,7 @@ public interface AddressBookMapper {
             "         district_name, detail, label, is_default)" +
             "        values (#{userId}, #{consignee}, #{phone}, #{sex}, #{provinceCode}, #{provinceName}, #{cityCode}, #{cityName}," +
             "                #{districtCode}, #{districtName}, #{detail}, #{label}, #{isDefault})")
+    @Options(useGeneratedKeys = true, keyProperty = "id")
     void insert(AddressBook addressBook);
 
     /**
@@ -44,6 +46,16 @@ public interface AddressBookMapper {
      */
     void update(AddressBook addressBook);
 
+    /**
+     * 保存配送范围计算结果，地址在计算期间被修改时不保存
+     * @param addressBook
+     * @return 修改的行数
+     */
+    @Update("update address_book set location = #{location}, distance = #{distance}, in_range = #{inRange}," +
+            " geo_time = #{geoTime} where id = #{id} and city_name <=> #{cityName}" +
+            " and district_name <=> #{districtName} and detail <=> #{detail}")
+    int updateLocation(AddressBook addressBook);
+
     /**
      * 根据 用户id修改 是否默认地址
      * @param addressBook
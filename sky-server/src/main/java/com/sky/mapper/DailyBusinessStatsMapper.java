@@ -0,0 +1,52 @@
+package com.sky.mapper;
+
+import com.sky.entity.DailyBusinessStats;
+import org.apache.ibatis.annotations.Delete;
+import org.apache.ibatis.annotations.Mapper;
+import org.apache.ibatis.annotations.Param;
+import org.apache.ibatis.annotations.Select;
+
+import java.time.LocalDate;
+import java.util.List;
+
+@Mapper
+public interface DailyBusinessStatsMapper {
+
+    /**
+     * 在当天的汇总数据上累加增量，当天没有数据时插入
+     * @param delta
+     */
+    void accumulate(DailyBusinessStats delta);
+
+    /**
+     * 批量插入汇总数据
+     * @param statsList
+     */
+    void insertBatch(List<DailyBusinessStats> statsList);
+
+    /**
+     * 删除日期区间内的汇总数据
+     * @param begin
+     * @param end
+     */
+    @Delete("delete from daily_business_stats where stat_date between #{begin} and #{end}")
+    void deleteByDateRange(@Param("begin") LocalDate begin, @Param("end") LocalDate end);
+
+    /**
+     * 查询日期区间内的汇总数据
+     * @param begin
+     * @param end
+     * @return
+     */
+    @Select("select * from daily_business_stats where stat_date between #{begin} and #{end} order by stat_date")
+    List<DailyBusinessStats> getByDateRange(@Param("begin") LocalDate begin, @Param("end") LocalDate end);
+
+    /**
+     * 日期区间内的汇总数据行数
+     * @param begin
+     * @param end
+     * @return
+     */
+    @Select("select count(*) from daily_business_stats where stat_date between #{begin} and #{end}")
+    Integer countByDateRange(@Param("begin") LocalDate begin, @Param("end") LocalDate end);
+}
@@ -5,6 +5,7 @@ import com.sky.annotation.AutoFill;
 import com.sky.dto.DishPageQueryDTO;
 import com.sky.entity.Dish;
 import com.sky.enumeration.OperationType;
+import com.sky.vo.DishOverViewVO;
 import com.sky.vo.DishVO;
 import org.apache.ibatis.annotations.Delete;
 import org.apache.ibatis.annotations.Mapper;
@@ -76,4 +77,10 @@ public interface DishMapper {
      * @return
      */
     Integer countByMap(Map<String, Object> map);
+
+    /**
+     * 一次查询统计起售和停售的菜品数量
+     * @return
+     */
+    DishOverViewVO countOverView();
 }
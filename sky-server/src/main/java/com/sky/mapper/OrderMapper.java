@@ -1,8 +1,12 @@
 package com.sky.mapper;
 
 import com.github.pagehelper.Page;
+import com.sky.dto.OrderDailyStatisticsDTO;
+import com.sky.dto.OrderStatusCountDTO;
 import com.sky.dto.OrdersPageQueryDTO;
 import com.sky.entity.Orders;
+import com.sky.vo.OrderOverViewVO;
+import com.sky.vo.OrderStatisticsVO;
 import org.apache.ibatis.annotations.Mapper;
 import org.apache.ibatis.annotations.Param;
 import org.apache.ibatis.annotations.Select;
@@ -33,6 +37,14 @@ public interface OrderMapper {
      */
     void update(Orders orders);
 
+    /**
+     * 订单处于指定状态之一时修改订单信息，订单按id定位，id为空时按订单号和用户id定位
+     * @param orders
+     * @param fromStatuses
+     * @return 修改的行数，订单不存在或不处于这些状态时为0
+     */
+    int updateByIdAndStatuses(@Param("orders") Orders orders, @Param("fromStatuses") List<Integer> fromStatuses);
+
     /**
      * 分页条件查询并按下单时间排序
      * @param ordersPageQueryDTO
@@ -54,12 +66,59 @@ public interface OrderMapper {
     Integer countStatus(Integer status);
 
     /**
-     * 根据状态和下单时间查询订单
+     * 一次查询统计待接单、待派送、派送中的订单数量
+     * @return
+     */
+    OrderStatisticsVO countStatistics();
+
+    /**
+     * 一次查询统计指定时间之后各状态的订单数量
+     * @param begin
+     * @return
+     */
+    OrderOverViewVO countOverView(@Param("begin") LocalDateTime begin);
+
+    /**
+     * 按下单日期和状态统计订单数量：指定时间之后的全部订单，以及更早的未结束订单
+     * @param begin
+     * @return
+     */
+    List<OrderStatusCountDTO> countByDateAndStatus(@Param("begin") LocalDateTime begin);
+
+    /**
+     * 查询指定状态的全部订单的id和下单时间
+     * @param status
+     */
+    @Select("select id, order_time from orders where status = #{status}")
+    List<Orders> getIdAndOrderTimeByStatus(Integer status);
+
+    /**
+     * 按id顺序锁定一批指定状态、下单时间早于指定时间的订单，只查询状态流转和统计需要的字段
      * @param status
      * @param orderTime
+     * @param limit
+     */
+    @Select("select id, number, user_id, status, order_time, amount from orders " +
+            "where status = #{status} and order_time < #{orderTime} order by id limit #{limit} for update")
+    List<Orders> lockByStatusAndOrdertimeLT(Integer status, LocalDateTime orderTime, int limit);
+
+    /**
+     * 批量修改订单状态，只修改仍处于原状态的订单
+     * @param ids
+     * @param fromStatus
+     * @param orders 新的状态，以及取消原因、取消时间等需要同时修改的字段
+     * @return 修改的行数
      */
-    @Select("select * from orders where status = #{status} and order_time < #{orderTime}")
-    List<Orders> getByStatusAndOrdertimeLT(Integer status, LocalDateTime orderTime);
+    int updateStatusByIds(@Param("ids") List<Long> ids,
+                          @Param("fromStatus") Integer fromStatus,
+                          @Param("orders") Orders orders);
+
+    /**
+     * 查询一批订单中处于指定状态的订单id
+     * @param ids
+     * @param status
+     */
+    List<Long> getIdsByIdsAndStatus(@Param("ids") List<Long> ids, @Param("status") Integer status);
 
     /**
      * 根据动态条件统计营业额
@@ -73,6 +132,14 @@ public interface OrderMapper {
      */
     Integer countByMap(Map<String, Object> map);
 
+    /**
+     * 按天分组统计订单总数、有效订单数和营业额
+     * @param begin
+     * @param end
+     */
+    List<OrderDailyStatisticsDTO> getDailyStatistics(@Param("begin") LocalDateTime begin,
+                                                     @Param("end") LocalDateTime end);
+
     /**
      * 查询商品销量排名
      * @param begin
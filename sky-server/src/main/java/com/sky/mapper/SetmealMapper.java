@@ -2,10 +2,12 @@ package com.sky.mapper;
 
 import com.github.pagehelper.Page;
 import com.sky.annotation.AutoFill;
+import com.sky.dto.SetmealDishItemDTO;
 import com.sky.dto.SetmealPageQueryDTO;
 import com.sky.entity.Setmeal;
 import com.sky.enumeration.OperationType;
 import com.sky.vo.DishItemVO;
+import com.sky.vo.SetmealOverViewVO;
 import com.sky.vo.SetmealVO;
 import org.apache.ibatis.annotations.Delete;
 import org.apache.ibatis.annotations.Mapper;
@@ -69,10 +71,23 @@ public interface SetmealMapper {
             "where sd.setmeal_id = #{setmealId}")
     List<DishItemVO> getDishItemBySetmealId(Long setmealId);
 
+    /**
+     * 根据多个套餐id批量查询菜品选项
+     * @param setmealIds
+     * @return
+     */
+    List<SetmealDishItemDTO> getDishItemsBySetmealIds(List<Long> setmealIds);
+
     /**
      * 根据条件统计套餐数量
      * @param map
      * @return
      */
     Integer countByMap(Map<String, Object> map);
-}
\ No newline at end of file
+
+    /**
+     * 一次查询统计起售和停售的套餐数量
+     * @return
+     */
+    SetmealOverViewVO countOverView();
+}
@@ -1,9 +1,13 @@
 package com.sky.mapper;
 
+import com.sky.dto.UserDailyStatisticsDTO;
 import com.sky.entity.User;
 import org.apache.ibatis.annotations.Mapper;
+import org.apache.ibatis.annotations.Param;
 import org.apache.ibatis.annotations.Select;
 
+import java.time.LocalDateTime;
+import java.util.List;
 import java.util.Map;
 
 @Mapper
@@ -29,4 +33,13 @@ public interface UserMapper {
      * @return
      */
     Integer countByMap(Map<String, Object> map);
+
+    /**
+     * 按天分组统计新增用户数
+     * @param begin
+     * @param end
+     * @return
+     */
+    List<UserDailyStatisticsDTO> getDailyStatistics(@Param("begin") LocalDateTime begin,
+                                                    @Param("end") LocalDateTime end);
 }
\ No newline at end of file
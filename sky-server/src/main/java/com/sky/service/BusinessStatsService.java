@@ -0,0 +1,66 @@
+package com.sky.service;
+
+import com.sky.entity.DailyBusinessStats;
+import com.sky.entity.Orders;
+import com.sky.entity.User;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 每日营业数据汇总，随订单状态变化和用户注册增量维护
+ */
+public interface BusinessStatsService {
+
+    /**
+     * 用户下单
+     * @param orders
+     */
+    void orderSubmitted(Orders orders);
+
+    /**
+     * 订单完成
+     * @param orders
+     */
+    void orderCompleted(Orders orders);
+
+    /**
+     * 订单取消，orders 为取消前的订单数据
+     * @param orders
+     */
+    void orderCancelled(Orders orders);
+
+    /**
+     * 批量完成订单，按日期合并后累加
+     * @param ordersList
+     */
+    void ordersCompleted(List<Orders> ordersList);
+
+    /**
+     * 批量取消订单，按日期合并后累加，ordersList 为取消前的订单数据
+     * @param ordersList
+     */
+    void ordersCancelled(List<Orders> ordersList);
+
+    /**
+     * 新用户注册
+     * @param user
+     */
+    void userRegistered(User user);
+
+    /**
+     * 查询日期区间内每天的营业数据，已结束的日期读汇总表，今天实时统计，没有数据的日期补0
+     * @param begin
+     * @param end
+     * @return
+     */
+    Map<LocalDate, DailyBusinessStats> getDailyStats(LocalDate begin, LocalDate end);
+
+    /**
+     * 根据订单表和用户表重建日期区间内的汇总数据
+     * @param begin
+     * @param end
+     */
+    void rebuild(LocalDate begin, LocalDate end);
+}
@@ -0,0 +1,18 @@
+package com.sky.service;
+
+import com.sky.entity.AddressBook;
+
+public interface DeliveryRangeService {
+
+    /**
+     * 异步计算地址的坐标、配送距离和是否在配送范围内，并保存到地址簿
+     * @param addressBookId
+     */
+    void precompute(Long addressBookId);
+
+    /**
+     * 校验地址是否在配送范围内，优先使用预先计算的结果
+     * @param addressBook
+     */
+    void checkInRange(AddressBook addressBook);
+}
@@ -0,0 +1,31 @@
+package com.sky.service;
+
+import com.sky.vo.DishVO;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 用户端菜品缓存：进程内缓存 -> redis -> 数据库
+ */
+public interface DishCacheService {
+
+    /**
+     * 根据分类id查询起售中的菜品和口味
+     * @param categoryId
+     * @return
+     */
+    List<DishVO> listByCategoryId(Long categoryId);
+
+    /**
+     * 清理菜品缓存，并通知所有节点清理进程内缓存
+     * @param categoryId 分类id，为null时清理全部分类
+     */
+    void evict(Long categoryId);
+
+    /**
+     * 各级缓存的命中统计
+     * @return
+     */
+    Map<String, Object> getStats();
+}
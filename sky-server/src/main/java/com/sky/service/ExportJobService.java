@@ -0,0 +1,41 @@
+package com.sky.service;
+
+import com.sky.vo.ExportJobVO;
+
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.time.LocalDate;
+
+/**
+ * 报表异步导出任务
+ */
+public interface ExportJobService {
+
+    /**
+     * 提交运营数据报表导出任务，相同日期区间在有效期内复用已有任务
+     * @param begin
+     * @param end
+     * @return
+     */
+    ExportJobVO submitBusinessExport(LocalDate begin, LocalDate end);
+
+    /**
+     * 查询任务状态和进度
+     * @param jobId
+     * @return
+     */
+    ExportJobVO getJob(String jobId);
+
+    /**
+     * 下载导出完成的报表文件
+     * @param jobId
+     * @param request
+     * @param response
+     */
+    void download(String jobId, HttpServletRequest request, HttpServletResponse response);
+
+    /**
+     * 清理过期任务和对应的文件，正在下载或最近开始过下载的文件留到之后清理
+     */
+    void cleanExpiredJobs();
+}
@@ -0,0 +1,43 @@
+package com.sky.service;
+
+import java.util.Map;
+
+/**
+ * 地理编码与路线规划（带本地缓存）
+ */
+public interface GeoService {
+
+    /**
+     * 获取店铺经纬度坐标（lat,lng），启动时解析一次
+     * @return
+     */
+    String getShopLocation();
+
+    /**
+     * 获取收货地址经纬度坐标（lat,lng），按地址簿id缓存
+     * @param addressBookId
+     * @param address
+     * @return
+     */
+    String getAddressLocation(Long addressBookId, String address);
+
+    /**
+     * 获取两个坐标之间的驾车距离（米），按坐标对缓存并设置过期时间
+     * @param origin
+     * @param destination
+     * @return
+     */
+    Integer getDrivingDistance(String origin, String destination);
+
+    /**
+     * 地址簿修改或删除后，清理对应的坐标缓存
+     * @param addressBookId
+     */
+    void evictAddress(Long addressBookId);
+
+    /**
+     * 缓存命中统计
+     * @return
+     */
+    Map<String, Long> getStats();
+}
@@ -0,0 +1,26 @@
+package com.sky.service;
+
+import java.util.Map;
+import java.util.function.Supplier;
+
+/**
+ * 按请求幂等key去重：同一个key只执行一次，重复请求直接返回第一次的结果
+ */
+public interface IdempotencyService {
+
+    /**
+     * 执行请求，key已有结果时直接返回，仍在处理中时抛出 DuplicateRequestException，执行失败时释放key允许重试
+     * @param key 幂等key，调用方需要带上用户id等区分范围的信息
+     * @param type 结果类型
+     * @param action
+     * @param <T>
+     * @return
+     */
+    <T> T execute(String key, Class<T> type, Supplier<T> action);
+
+    /**
+     * 统计
+     * @return
+     */
+    Map<String, Object> getStats();
+}
@@ -0,0 +1,22 @@
+package com.sky.service;
+
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+/**
+ * 完整菜单快照
+ */
+public interface MenuService {
+
+    /**
+     * 输出当前版本的菜单快照，客户端的 If-None-Match 与 ETag 一致时返回304
+     * @param request
+     * @param response
+     */
+    void writeMenu(HttpServletRequest request, HttpServletResponse response);
+
+    /**
+     * 分类、菜品或套餐修改后调用，菜单版本号加一并在后台重建快照
+     */
+    void invalidate();
+}
@@ -12,6 +12,9 @@ import com.sky.vo.OrderSubmitVO;
 import com.sky.vo.OrderStatisticsVO;
 import com.sky.vo.OrderVO;
 
+import java.time.LocalDateTime;
+import java.util.List;
+
 public interface OrderService {
 
     /**
@@ -111,4 +114,27 @@ public interface OrderService {
      * @param id
      */
     void reminder(Long id);
+
+    /**
+     * 取消一个支付超时的订单，订单已不是待付款状态时不做处理
+     * @param id
+     * @return 是否取消
+     */
+    boolean cancelTimeoutOrder(Long id);
+
+    /**
+     * 取消一批下单时间早于指定时间的待付款订单
+     * @param orderTime
+     * @param limit 每批最多处理的订单数
+     * @return 被取消的订单id
+     */
+    List<Long> cancelTimeoutOrders(LocalDateTime orderTime, int limit);
+
+    /**
+     * 完成一批下单时间早于指定时间的派送中订单
+     * @param orderTime
+     * @param limit 每批最多处理的订单数
+     * @return 被完成的订单id
+     */
+    List<Long> completeDeliveryOrders(LocalDateTime orderTime, int limit);
 }
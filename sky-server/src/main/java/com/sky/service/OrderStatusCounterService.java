@@ -0,0 +1,46 @@
+package com.sky.service;
+
+import com.sky.entity.Orders;
+import com.sky.vo.OrderOverViewVO;
+import com.sky.vo.OrderStatisticsVO;
+
+import java.time.LocalDate;
+
+/**
+ * 按下单日期和订单状态维护的内存计数，随订单状态变化增减，定时与数据库校准
+ */
+public interface OrderStatusCounterService {
+
+    /**
+     * 新订单，对应日期和状态的计数加一
+     * 在事务中调用时，事务提交后才计数
+     * @param orderDate
+     * @param status
+     */
+    void created(LocalDate orderDate, Integer status);
+
+    /**
+     * 订单状态变化，orders 为变化前的订单数据
+     * 在事务中调用时，事务提交后才计数
+     * @param orders
+     * @param newStatus
+     */
+    void transition(Orders orders, Integer newStatus);
+
+    /**
+     * 待接单、待派送、派送中的订单数量
+     * @return
+     */
+    OrderStatisticsVO getStatistics();
+
+    /**
+     * 今天各状态的订单数量
+     * @return
+     */
+    OrderOverViewVO getTodayOverView();
+
+    /**
+     * 根据订单表重新计算计数
+     */
+    void reconcile();
+}
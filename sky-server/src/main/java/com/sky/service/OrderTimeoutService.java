@@ -0,0 +1,36 @@
+package com.sky.service;
+
+import java.time.LocalDateTime;
+import java.util.Map;
+
+/**
+ * 待付款订单的支付超时队列，到期的订单由 OrderTimeoutTask 取出并取消
+ */
+public interface OrderTimeoutService {
+
+    /**
+     * 登记订单的支付截止时间，截止时间为下单时间加上支付超时时间
+     * @param orderId
+     * @param orderTime
+     */
+    void register(Long orderId, LocalDateTime orderTime);
+
+    /**
+     * 订单已支付或已取消，不再需要超时处理
+     * @param orderId
+     */
+    void cancel(Long orderId);
+
+    /**
+     * 阻塞等待下一个到期的订单
+     * @return 到期的订单id
+     * @throws InterruptedException
+     */
+    Long take() throws InterruptedException;
+
+    /**
+     * 队列统计
+     * @return
+     */
+    Map<String, Long> getStats();
+}
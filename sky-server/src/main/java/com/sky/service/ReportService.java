@@ -5,7 +5,10 @@ import com.sky.vo.SalesTop10ReportVO;
 import com.sky.vo.TurnoverReportVO;
 import com.sky.vo.UserReportVO;
 
+import java.io.IOException;
+import java.io.OutputStream;
 import java.time.LocalDate;
+import java.util.function.IntConsumer;
 import javax.servlet.http.HttpServletResponse;
 
 public interface ReportService {
@@ -42,8 +45,27 @@ public interface ReportService {
     SalesTop10ReportVO getSalesTop10(LocalDate begin, LocalDate end);
 
     /**
-     * 导出近30天的运营数据报表
+     * 导出指定日期区间的运营数据报表，不指定时导出近30天
+     * @param begin
+     * @param end
      * @param response
      */
-    void exportBusinessData(HttpServletResponse response);
+    void exportBusinessData(LocalDate begin, LocalDate end, HttpServletResponse response);
+
+    /**
+     * 把指定日期区间的运营数据报表写到输出流
+     * @param begin
+     * @param end
+     * @param out
+     * @param progressListener 接收0-100的进度，可以为空
+     * @throws IOException
+     */
+    void writeBusinessData(LocalDate begin, LocalDate end, OutputStream out, IntConsumer progressListener) throws IOException;
+
+    /**
+     * 校验导出的日期区间，不合法时抛出 ReportBusinessException
+     * @param begin
+     * @param end
+     */
+    void checkExportRange(LocalDate begin, LocalDate end);
 }
@@ -0,0 +1,36 @@
+package com.sky.service;
+
+/**
+ * 店铺营业状态，保存在本地内存中，修改时通过redis通知所有节点
+ */
+public interface ShopService {
+
+    //营业中
+    Integer OPEN = 1;
+
+    //打烊中
+    Integer CLOSED = 0;
+
+    /**
+     * 设置营业状态
+     * @param status
+     */
+    void setStatus(Integer status);
+
+    /**
+     * 获取营业状态，未设置或读取失败时为营业中
+     * @return
+     */
+    Integer getStatus();
+
+    /**
+     * 是否营业中，与 getStatus 一致：只有明确设置为打烊中时才返回false
+     * @return
+     */
+    boolean isOpen();
+
+    /**
+     * 从redis重新读取营业状态
+     */
+    void refresh();
+}
@@ -0,0 +1,49 @@
+package com.sky.service;
+
+import com.sky.entity.ShoppingCart;
+
+import java.util.List;
+
+/**
+ * 购物车存储，通过 sky.cart.store 选择 mysql 或 redis
+ */
+public interface ShoppingCartStore {
+
+    /**
+     * 查询用户购物车中的全部商品
+     * @param userId
+     * @return
+     */
+    List<ShoppingCart> list(Long userId);
+
+    /**
+     * 商品已在购物车中时数量加1并返回true，不存在时返回false
+     * @param shoppingCart 用户id、菜品id、套餐id和口味
+     * @return
+     */
+    boolean increment(ShoppingCart shoppingCart);
+
+    /**
+     * 新商品加入购物车
+     * @param shoppingCart
+     */
+    void insert(ShoppingCart shoppingCart);
+
+    /**
+     * 批量加入购物车
+     * @param shoppingCartList
+     */
+    void insertBatch(List<ShoppingCart> shoppingCartList);
+
+    /**
+     * 清空用户购物车
+     * @param userId
+     */
+    void clean(Long userId);
+
+    /**
+     * 把有变化的购物车写入数据库，不需要持久化的存储什么也不做
+     */
+    default void flush() {
+    }
+}
@@ -4,6 +4,8 @@ import com.sky.context.BaseContext;
 import com.sky.entity.AddressBook;
 import com.sky.mapper.AddressBookMapper;
 import com.sky.service.AddressBookService;
+import com.sky.service.DeliveryRangeService;
+import com.sky.service.GeoService;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
@@ -16,6 +18,10 @@ import java.util.List;
 public class AddressBookServiceImpl implements AddressBookService {
     @Autowired
     private AddressBookMapper addressBookMapper;
+    @Autowired
+    private GeoService geoService;
+    @Autowired
+    private DeliveryRangeService deliveryRangeService;
 
     /**
      * 条件查询
@@ -36,6 +42,8 @@ public class AddressBookServiceImpl implements AddressBookService {
         addressBook.setUserId(BaseContext.getCurrentId());
         addressBook.setIsDefault(0);
         addressBookMapper.insert(addressBook);
+        // 异步计算配送范围
+        deliveryRangeService.precompute(addressBook.getId());
     }
 
     /**
@@ -56,6 +64,9 @@ public class AddressBookServiceImpl implements AddressBookService {
      */
     public void update(AddressBook addressBook) {
         addressBookMapper.update(addressBook);
+        // 地址可能已变化，清理坐标缓存
+        geoService.evictAddress(addressBook.getId());
+        deliveryRangeService.precompute(addressBook.getId());
     }
 
     /**
@@ -82,5 +93,6 @@ public class AddressBookServiceImpl implements AddressBookService {
      */
     public void deleteById(Long id) {
         addressBookMapper.deleteById(id);
+        geoService.evictAddress(id);
     }
 }
@@ -0,0 +1,223 @@
+package com.sky.service.impl;
+
+import com.sky.constant.MessageConstant;
+import com.sky.dto.OrderDailyStatisticsDTO;
+import com.sky.dto.UserDailyStatisticsDTO;
+import com.sky.entity.DailyBusinessStats;
+import com.sky.entity.Orders;
+import com.sky.entity.User;
+import com.sky.exception.ReportBusinessException;
+import com.sky.mapper.DailyBusinessStatsMapper;
+import com.sky.mapper.OrderMapper;
+import com.sky.mapper.UserMapper;
+import com.sky.service.BusinessStatsService;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeSet;
+
+@Service
+@Slf4j
+public class BusinessStatsServiceImpl implements BusinessStatsService {
+
+    //重建时每批插入的行数
+    private static final int INSERT_BATCH_SIZE = 500;
+
+    @Autowired
+    private DailyBusinessStatsMapper dailyBusinessStatsMapper;
+    @Autowired
+    private OrderMapper orderMapper;
+    @Autowired
+    private UserMapper userMapper;
+
+    //单次重建的最大天数，与报表导出的限制一致
+    @Value("${sky.report.export-max-days:1100}")
+    private long rebuildMaxDays;
+
+    @Override
+    public void orderSubmitted(Orders orders) {
+        DailyBusinessStats delta = emptyStats(getStatDate(orders));
+        delta.setTotalOrders(1);
+        dailyBusinessStatsMapper.accumulate(delta);
+    }
+
+    @Override
+    public void orderCompleted(Orders orders) {
+        DailyBusinessStats delta = emptyStats(getStatDate(orders));
+        delta.setValidOrders(1);
+        delta.setTurnover(orders.getAmount() == null ? BigDecimal.ZERO : orders.getAmount());
+        dailyBusinessStatsMapper.accumulate(delta);
+    }
+
+    @Override
+    public void orderCancelled(Orders orders) {
+        // 重复取消不重复计数
+        if (Orders.CANCELLED.equals(orders.getStatus())) {
+            return;
+        }
+        DailyBusinessStats delta = emptyStats(getStatDate(orders));
+        delta.setCancelledOrders(1);
+        // 已完成的订单被取消，需要扣减有效订单和营业额
+        if (Orders.COMPLETED.equals(orders.getStatus())) {
+            delta.setValidOrders(-1);
+            delta.setTurnover(orders.getAmount() == null ? BigDecimal.ZERO : orders.getAmount().negate());
+        }
+        dailyBusinessStatsMapper.accumulate(delta);
+    }
+
+    @Override
+    public void ordersCompleted(List<Orders> ordersList) {
+        Map<LocalDate, DailyBusinessStats> deltas = new LinkedHashMap<>();
+        for (Orders orders : ordersList) {
+            DailyBusinessStats delta = deltas.computeIfAbsent(getStatDate(orders), this::emptyStats);
+            delta.setValidOrders(delta.getValidOrders() + 1);
+            if (orders.getAmount() != null) {
+                delta.setTurnover(delta.getTurnover().add(orders.getAmount()));
+            }
+        }
+        deltas.values().forEach(dailyBusinessStatsMapper::accumulate);
+    }
+
+    @Override
+    public void ordersCancelled(List<Orders> ordersList) {
+        Map<LocalDate, DailyBusinessStats> deltas = new LinkedHashMap<>();
+        for (Orders orders : ordersList) {
+            // 重复取消不重复计数
+            if (Orders.CANCELLED.equals(orders.getStatus())) {
+                continue;
+            }
+            DailyBusinessStats delta = deltas.computeIfAbsent(getStatDate(orders), this::emptyStats);
+            delta.setCancelledOrders(delta.getCancelledOrders() + 1);
+            // 已完成的订单被取消，需要扣减有效订单和营业额
+            if (Orders.COMPLETED.equals(orders.getStatus())) {
+                delta.setValidOrders(delta.getValidOrders() - 1);
+                if (orders.getAmount() != null) {
+                    delta.setTurnover(delta.getTurnover().subtract(orders.getAmount()));
+                }
+            }
+        }
+        deltas.values().forEach(dailyBusinessStatsMapper::accumulate);
+    }
+
+    @Override
+    public void userRegistered(User user) {
+        LocalDateTime createTime = user.getCreateTime();
+        DailyBusinessStats delta = emptyStats(createTime == null ? LocalDate.now() : createTime.toLocalDate());
+        delta.setNewUsers(1);
+        dailyBusinessStatsMapper.accumulate(delta);
+    }
+
+    @Override
+    public Map<LocalDate, DailyBusinessStats> getDailyStats(LocalDate begin, LocalDate end) {
+        Map<LocalDate, DailyBusinessStats> result = new LinkedHashMap<>();
+        for (LocalDate date = begin; !date.isAfter(end); date = date.plusDays(1)) {
+            result.put(date, emptyStats(date));
+        }
+
+        LocalDate today = LocalDate.now();
+        // 已结束的日期读汇总表，汇总表中缺失的日期从订单表和用户表实时统计
+        if (begin.isBefore(today)) {
+            LocalDate closedEnd = end.isBefore(today) ? end : today.minusDays(1);
+            TreeSet<LocalDate> missing = new TreeSet<>();
+            for (LocalDate date = begin; !date.isAfter(closedEnd); date = date.plusDays(1)) {
+                missing.add(date);
+            }
+            for (DailyBusinessStats stats : dailyBusinessStatsMapper.getByDateRange(begin, closedEnd)) {
+                result.put(stats.getStatDate(), stats);
+                missing.remove(stats.getStatDate());
+            }
+            if (!missing.isEmpty()) {
+                LocalDate missingBegin = missing.first();
+                LocalDate missingEnd = missing.last();
+                log.debug("汇总表缺少{}天的数据，实时统计：{} 至 {}", missing.size(), missingBegin, missingEnd);
+                computeFromLiveTables(missingBegin, missingEnd).forEach((date, stats) -> {
+                    if (missing.contains(date)) {
+                        result.put(date, stats);
+                    }
+                });
+            }
+        }
+        // 今天的数据实时统计
+        if (!end.isBefore(today)) {
+            LocalDate liveBegin = begin.isAfter(today) ? begin : today;
+            result.putAll(computeFromLiveTables(liveBegin, end));
+        }
+        return result;
+    }
+
+    @Override
+    @Transactional
+    public void rebuild(LocalDate begin, LocalDate end) {
+        if (begin == null || end == null || begin.isAfter(end)
+                || ChronoUnit.DAYS.between(begin, end) >= rebuildMaxDays) {
+            throw new ReportBusinessException(MessageConstant.REPORT_DATE_RANGE_ERROR);
+        }
+        log.info("重建营业数据汇总：{} 至 {}", begin, end);
+        List<DailyBusinessStats> statsList = new ArrayList<>(computeFromLiveTables(begin, end).values());
+
+        dailyBusinessStatsMapper.deleteByDateRange(begin, end);
+        for (int i = 0; i < statsList.size(); i += INSERT_BATCH_SIZE) {
+            dailyBusinessStatsMapper.insertBatch(statsList.subList(i, Math.min(i + INSERT_BATCH_SIZE, statsList.size())));
+        }
+    }
+
+    /**
+     * 从订单表和用户表按天统计，没有数据的日期补0
+     * @param begin
+     * @param end
+     * @return
+     */
+    private Map<LocalDate, DailyBusinessStats> computeFromLiveTables(LocalDate begin, LocalDate end) {
+        Map<LocalDate, DailyBusinessStats> result = new LinkedHashMap<>();
+        for (LocalDate date = begin; !date.isAfter(end); date = date.plusDays(1)) {
+            result.put(date, emptyStats(date));
+        }
+
+        LocalDateTime beginTime = LocalDateTime.of(begin, LocalTime.MIN);
+        LocalDateTime endTime = LocalDateTime.of(end, LocalTime.MAX);
+        for (OrderDailyStatisticsDTO dto : orderMapper.getDailyStatistics(beginTime, endTime)) {
+            DailyBusinessStats stats = result.get(dto.getDate());
+            if (stats != null) {
+                stats.setTotalOrders(dto.getOrderCount());
+                stats.setValidOrders(dto.getValidOrderCount());
+                stats.setCancelledOrders(dto.getCancelledOrderCount());
+                stats.setTurnover(dto.getTurnover() == null ? BigDecimal.ZERO : BigDecimal.valueOf(dto.getTurnover()));
+            }
+        }
+        for (UserDailyStatisticsDTO dto : userMapper.getDailyStatistics(beginTime, endTime)) {
+            DailyBusinessStats stats = result.get(dto.getDate());
+            if (stats != null) {
+                stats.setNewUsers(dto.getNewUsers());
+            }
+        }
+        return result;
+    }
+
+    private LocalDate getStatDate(Orders orders) {
+        return orders.getOrderTime() == null ? LocalDate.now() : orders.getOrderTime().toLocalDate();
+    }
+
+    private DailyBusinessStats emptyStats(LocalDate date) {
+        return DailyBusinessStats.builder()
+                .statDate(date)
+                .turnover(BigDecimal.ZERO)
+                .totalOrders(0)
+                .validOrders(0)
+                .cancelledOrders(0)
+                .newUsers(0)
+                .updateTime(LocalDateTime.now())
+                .build();
+    }
+}
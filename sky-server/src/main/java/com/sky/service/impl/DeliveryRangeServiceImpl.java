@@ -0,0 +1,97 @@
+package com.sky.service.impl;
+
+import com.sky.constant.StatusConstant;
+import com.sky.entity.AddressBook;
+import com.sky.exception.OrderBusinessException;
+import com.sky.mapper.AddressBookMapper;
+import com.sky.service.DeliveryRangeService;
+import com.sky.service.GeoService;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Async;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDateTime;
+
+/**
+ * 配送范围计算
+ * 地址新增/修改时异步计算并落库，下单时只读取结果；结果缺失或过期时才实时计算
+ */
+@Service
+@Slf4j
+public class DeliveryRangeServiceImpl implements DeliveryRangeService {
+
+    @Autowired
+    private AddressBookMapper addressBookMapper;
+    @Autowired
+    private GeoService geoService;
+
+    //配送范围（米）
+    @Value("${sky.shop.delivery-distance:5000}")
+    private int deliveryDistance;
+
+    //预计算结果的有效期（天）
+    @Value("${sky.shop.delivery-range-ttl-days:30}")
+    private long rangeTtlDays;
+
+    @Override
+    @Async
+    public void precompute(Long addressBookId) {
+        AddressBook addressBook = addressBookMapper.getById(addressBookId);
+        if (addressBook == null) {
+            return;
+        }
+        try {
+            compute(addressBook);
+        } catch (Exception e) {
+            // 计算失败时保留空结果，下单时再实时计算
+            log.warn("地址{}配送范围预计算失败：{}", addressBookId, e.getMessage());
+        }
+    }
+
+    @Override
+    public void checkInRange(AddressBook addressBook) {
+        if (!isFresh(addressBook)) {
+            log.info("地址{}没有可用的配送范围结果，实时计算", addressBook.getId());
+            compute(addressBook);
+        }
+
+        if (!StatusConstant.ENABLE.equals(addressBook.getInRange())) {
+            // 配送距离超过配送范围
+            throw new OrderBusinessException("超出配送范围");
+        }
+    }
+
+    /**
+     * 计算并保存配送范围结果
+     * @param addressBook
+     */
+    private void compute(AddressBook addressBook) {
+        String address = addressBook.getCityName() + addressBook.getDistrictName() + addressBook.getDetail();
+
+        String location = geoService.getAddressLocation(addressBook.getId(), address);
+        Integer distance = geoService.getDrivingDistance(geoService.getShopLocation(), location);
+        log.debug("地理缓存统计：{}", geoService.getStats());
+
+        addressBook.setLocation(location);
+        addressBook.setDistance(distance);
+        addressBook.setInRange(distance <= deliveryDistance ? StatusConstant.ENABLE : StatusConstant.DISABLE);
+        addressBook.setGeoTime(LocalDateTime.now());
+        // 按计算时的地址条件更新，慢的旧计算不会覆盖新地址的结果
+        if (addressBookMapper.updateLocation(addressBook) == 0) {
+            log.info("地址{}在计算期间已修改，丢弃本次配送范围结果", addressBook.getId());
+        }
+    }
+
+    /**
+     * 预计算结果是否可用
+     * @param addressBook
+     * @return
+     */
+    private boolean isFresh(AddressBook addressBook) {
+        return addressBook.getGeoTime() != null
+                && addressBook.getInRange() != null
+                && addressBook.getGeoTime().isAfter(LocalDateTime.now().minusDays(rangeTtlDays));
+    }
+}
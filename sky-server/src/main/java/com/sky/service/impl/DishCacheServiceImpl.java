@@ -0,0 +1,250 @@
+package com.sky.service.impl;
+
+import com.sky.cache.LocalCache;
+import com.sky.cache.SingleFlight;
+import com.sky.constant.CacheConstant;
+import com.sky.constant.StatusConstant;
+import com.sky.entity.Dish;
+import com.sky.service.DishCacheService;
+import com.sky.service.DishService;
+import com.sky.vo.DishVO;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.connection.Message;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+import org.springframework.stereotype.Service;
+
+import javax.annotation.PostConstruct;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 用户端菜品缓存
+ * 进程内缓存设置较短的过期时间，后台修改菜品时通过redis发布失效通知，各节点收到后清理进程内缓存
+ * redis中的key带版本号，全部失效只需要把版本号加一，不再扫描key
+ * 同一分类的并发未命中只加载一次；开启stale-while-revalidate时，缓存失效后先返回上一次的数据，后台重新加载
+ * 加载期间本节点收到过失效通知时，加载结果不写入缓存，避免修改前的数据在失效后重新进入缓存
+ */
+@Service
+@Slf4j
+public class DishCacheServiceImpl implements DishCacheService {
+
+    @Autowired
+    private DishService dishService;
+    @Autowired
+    private RedisTemplate<String, Object> redisTemplate;
+    @Autowired
+    private StringRedisTemplate stringRedisTemplate;
+    @Autowired
+    private RedisMessageListenerContainer redisMessageListenerContainer;
+    @Autowired
+    @Qualifier("applicationTaskExecutor")
+    private Executor taskExecutor;
+
+    @Value("${sky.cache.dish.local-ttl:60000}")
+    private long localTtlMillis;
+
+    @Value("${sky.cache.dish.local-max-size:200}")
+    private int localMaxSize;
+
+    @Value("${sky.cache.dish.redis-ttl:86400}")
+    private long redisTtlSeconds;
+
+    @Value("${sky.cache.dish.stale-while-revalidate:false}")
+    private boolean staleWhileRevalidate;
+
+    @Value("${sky.cache.dish.stale-ttl:600000}")
+    private long staleTtlMillis;
+
+    //分类id -> 菜品列表
+    private LocalCache<Long, List<DishVO>> localCache;
+
+    //分类id -> 最近一次加载的菜品列表，缓存失效后重新加载期间使用
+    private LocalCache<Long, List<DishVO>> staleCache;
+
+    private final SingleFlight<Long, List<DishVO>> singleFlight = new SingleFlight<>();
+
+    //本节点清理进程内缓存的次数，加载期间发生过清理时不写入加载结果
+    private final AtomicLong evictGeneration = new AtomicLong();
+
+    private final LongAdder redisHits = new LongAdder();
+    private final LongAdder redisMisses = new LongAdder();
+
+    @PostConstruct
+    public void init() {
+        localCache = new LocalCache<>("dish", localTtlMillis, localMaxSize);
+        staleCache = new LocalCache<>("dishStale", staleTtlMillis, localMaxSize);
+        redisMessageListenerContainer.addMessageListener(this::onEvictMessage,
+                new ChannelTopic(CacheConstant.DISH_EVICT_CHANNEL));
+    }
+
+    @Override
+    public List<DishVO> listByCategoryId(Long categoryId) {
+        if (categoryId == null) {
+            // 不指定分类时查询全部起售菜品，不走缓存（缓存的key不能为null）
+            return queryDb(null);
+        }
+
+        List<DishVO> list = localCache.getIfPresent(categoryId);
+        if (list != null) {
+            return list;
+        }
+
+        if (staleWhileRevalidate) {
+            List<DishVO> stale = staleCache.getIfPresent(categoryId);
+            if (stale != null) {
+                // 先返回旧数据，后台重新加载
+                singleFlight.executeAsync(categoryId, () -> load(categoryId), taskExecutor)
+                        .whenComplete((result, e) -> {
+                            if (e != null) {
+                                log.warn("后台加载菜品缓存失败，分类id：{}", categoryId, e);
+                            }
+                        });
+                return stale;
+            }
+        }
+
+        // 同一分类的并发请求只有一个查询redis和数据库
+        return singleFlight.execute(categoryId, () -> load(categoryId));
+    }
+
+    @Override
+    public void evict(Long categoryId) {
+        if (categoryId != null) {
+            // 只删除当前版本下这个分类的key
+            redisTemplate.delete(getRedisKey(getVersion(), categoryId));
+        } else {
+            // 版本号加一，旧版本的key不再被读取，过期后由redis回收
+            stringRedisTemplate.opsForValue().increment(CacheConstant.DISH_VERSION_KEY);
+        }
+
+        // 本节点立即清理，其他节点收到通知后清理
+        String message = categoryId == null ? CacheConstant.EVICT_ALL : categoryId.toString();
+        evictLocal(message);
+        redisTemplate.convertAndSend(CacheConstant.DISH_EVICT_CHANNEL, message);
+    }
+
+    @Override
+    public Map<String, Object> getStats() {
+        long hits = redisHits.sum();
+        long misses = redisMisses.sum();
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("local", localCache.getStats());
+
+        Map<String, Object> redisStats = new LinkedHashMap<>();
+        redisStats.put("hits", hits);
+        redisStats.put("misses", misses);
+        redisStats.put("hitRatio", hits + misses == 0 ? 0.0 : (double) hits / (hits + misses));
+        stats.put("redis", redisStats);
+
+        Map<String, Object> loadStats = new LinkedHashMap<>();
+        loadStats.put("loads", singleFlight.getLoads());
+        loadStats.put("coalesced", singleFlight.getCoalesced());
+        stats.put("load", loadStats);
+        stats.put("stale", staleCache.getStats());
+        return stats;
+    }
+
+    /**
+     * 依次查询redis和数据库，并写入进程内缓存
+     * @param categoryId
+     * @return
+     */
+    private List<DishVO> load(Long categoryId) {
+        long generation = evictGeneration.get();
+
+        // 构造redis的key dish_v版本号_分类id，查询redis中是否存在菜品数据
+        String key = getRedisKey(getVersion(), categoryId);
+        List<DishVO> list = (List<DishVO>) redisTemplate.opsForValue().get(key);
+        if (list != null && list.size() > 0) {
+            redisHits.increment();
+        } else {
+            redisMisses.increment();
+
+            // 如果不存在就查询 MySQL，将查询到的数据放到 redis
+            list = queryDb(categoryId);
+            if (generation != evictGeneration.get()) {
+                // 查询期间菜品被修改，查到的可能是修改前的数据，只返回给本次请求
+                return list;
+            }
+            redisTemplate.opsForValue().set(key, list, redisTtlSeconds, TimeUnit.SECONDS);
+        }
+
+        if (generation != evictGeneration.get()) {
+            return list;
+        }
+        localCache.put(categoryId, list);
+        staleCache.put(categoryId, list);
+        if (generation != evictGeneration.get()) {
+            // 写入时恰好收到失效通知
+            localCache.invalidate(categoryId);
+            staleCache.invalidate(categoryId);
+        }
+        return list;
+    }
+
+    /**
+     * 查询数据库中分类下起售的菜品，分类为null时查询全部起售菜品
+     * @param categoryId
+     * @return
+     */
+    private List<DishVO> queryDb(Long categoryId) {
+        Dish dish = new Dish();
+        dish.setCategoryId(categoryId);
+        dish.setStatus(StatusConstant.ENABLE);
+        return dishService.listWithFlavor(dish);
+    }
+
+    /**
+     * 当前缓存版本号，不存在时为0
+     * @return
+     */
+    private String getVersion() {
+        String version = stringRedisTemplate.opsForValue().get(CacheConstant.DISH_VERSION_KEY);
+        return version == null ? "0" : version;
+    }
+
+    private String getRedisKey(String version, Long categoryId) {
+        return CacheConstant.DISH_KEY_PREFIX + "v" + version + "_" + categoryId;
+    }
+
+    /**
+     * 收到失效通知
+     * @param message
+     * @param pattern
+     */
+    private void onEvictMessage(Message message, byte[] pattern) {
+        Object body = redisTemplate.getValueSerializer().deserialize(message.getBody());
+        if (body != null) {
+            evictLocal(body.toString());
+        }
+    }
+
+    /**
+     * 清理进程内缓存
+     * @param message 分类id，或 * 表示全部
+     */
+    private void evictLocal(String message) {
+        evictGeneration.incrementAndGet();
+        if (CacheConstant.EVICT_ALL.equals(message)) {
+            localCache.invalidateAll();
+            return;
+        }
+        try {
+            localCache.invalidate(Long.valueOf(message));
+        } catch (NumberFormatException e) {
+            log.warn("无法识别的菜品缓存失效通知：{}", message);
+            localCache.invalidateAll();
+        }
+    }
+}
@@ -0,0 +1,308 @@
+package com.sky.service.impl;
+
+import com.sky.constant.MessageConstant;
+import com.sky.exception.ReportBusinessException;
+import com.sky.service.ExportJobService;
+import com.sky.service.ReportService;
+import com.sky.vo.ExportJobVO;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.URLEncoder;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 报表异步导出
+ * 任务在有界线程池中把报表写到本地临时文件，前端轮询进度后下载；
+ * 相同类型和日期区间的任务在有效期内直接复用，不重复导出
+ */
+@Service
+@Slf4j
+public class ExportJobServiceImpl implements ExportJobService {
+
+    //报表类型：运营数据
+    public static final String TYPE_BUSINESS = "business";
+
+    //Tomcat sendfile 相关的请求属性
+    private static final String SENDFILE_SUPPORT = "org.apache.tomcat.sendfile.support";
+    private static final String SENDFILE_FILENAME = "org.apache.tomcat.sendfile.filename";
+    private static final String SENDFILE_START = "org.apache.tomcat.sendfile.start";
+    private static final String SENDFILE_END = "org.apache.tomcat.sendfile.end";
+
+    @Autowired
+    private ReportService reportService;
+
+    //导出线程数
+    @Value("${sky.report.export-threads:2}")
+    private int exportThreads;
+
+    //排队任务上限
+    @Value("${sky.report.export-queue-capacity:20}")
+    private int exportQueueCapacity;
+
+    //导出文件保留时间（秒），期间相同请求复用文件
+    @Value("${sky.report.export-ttl:600}")
+    private long exportTtlSeconds;
+
+    //最近一次开始下载后的保护时间（秒），期间不删除文件；sendfile 在请求处理结束后才由Tomcat打开文件，无法得知何时读完
+    @Value("${sky.report.export-download-grace:300}")
+    private long downloadGraceSeconds;
+
+    //导出文件目录
+    @Value("${sky.report.export-dir:${java.io.tmpdir}/sky-report}")
+    private String exportDir;
+
+    private ThreadPoolExecutor executor;
+
+    //任务id -> 任务
+    private final Map<String, ExportJob> jobs = new ConcurrentHashMap<>();
+
+    //类型+日期区间 -> 任务id
+    private final Map<String, String> jobIdByKey = new ConcurrentHashMap<>();
+
+    @PostConstruct
+    public void init() throws IOException {
+        Files.createDirectories(Paths.get(exportDir));
+        AtomicInteger threadNumber = new AtomicInteger();
+        executor = new ThreadPoolExecutor(exportThreads, exportThreads, 60, TimeUnit.SECONDS,
+                new ArrayBlockingQueue<>(exportQueueCapacity),
+                r -> {
+                    Thread thread = new Thread(r, "report-export-" + threadNumber.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                });
+    }
+
+    @PreDestroy
+    public void destroy() {
+        executor.shutdownNow();
+    }
+
+    @Override
+    public ExportJobVO submitBusinessExport(LocalDate begin, LocalDate end) {
+        // 默认导出近30天
+        if (begin == null || end == null) {
+            begin = LocalDate.now().minusDays(30);
+            end = LocalDate.now().minusDays(1);
+        }
+        // 提交前校验日期区间，不合法的请求不进入队列
+        reportService.checkExportRange(begin, end);
+        String key = TYPE_BUSINESS + ":" + begin + ":" + end;
+
+        ExportJob newJob = new ExportJob(UUID.randomUUID().toString().replace("-", ""), key, TYPE_BUSINESS, begin, end);
+        String jobId = jobIdByKey.compute(key, (k, existingId) -> {
+            ExportJob existing = existingId == null ? null : jobs.get(existingId);
+            if (existing != null && existing.isReusable()) {
+                return existingId;
+            }
+            jobs.put(newJob.jobId, newJob);
+            return newJob.jobId;
+        });
+
+        ExportJob job = jobs.get(jobId);
+        if (job == newJob) {
+            try {
+                executor.execute(() -> run(newJob));
+            } catch (RejectedExecutionException e) {
+                jobs.remove(newJob.jobId);
+                jobIdByKey.remove(key, newJob.jobId);
+                throw new ReportBusinessException(MessageConstant.EXPORT_JOB_BUSY);
+            }
+            log.info("提交报表导出任务：{} {}", jobId, key);
+        } else {
+            log.info("复用报表导出任务：{} {}", jobId, key);
+        }
+        return job.toVO();
+    }
+
+    @Override
+    public ExportJobVO getJob(String jobId) {
+        return getExistingJob(jobId).toVO();
+    }
+
+    @Override
+    public void download(String jobId, HttpServletRequest request, HttpServletResponse response) {
+        ExportJob job = getExistingJob(jobId);
+        if (!ExportJobVO.FINISHED.equals(job.status)) {
+            throw new ReportBusinessException(MessageConstant.EXPORT_JOB_NOT_FINISHED);
+        }
+        // 与清理互斥：登记下载之后文件在保护时间内不会被删除
+        synchronized (job) {
+            if (job.deleted) {
+                throw new ReportBusinessException(MessageConstant.EXPORT_JOB_NOT_FOUND);
+            }
+            job.lastDownloadMillis = System.currentTimeMillis();
+            job.readers++;
+        }
+
+        try {
+            long size = Files.size(job.file);
+            String fileName = URLEncoder.encode("运营数据报表_" + job.begin + "_" + job.end + ".xlsx",
+                    StandardCharsets.UTF_8.name()).replaceAll("\\+", "%20");
+            response.setContentType("application/vnd.openxmlformats-officedocument.spreadsheetml.sheet");
+            response.setHeader("Content-Disposition", "attachment; filename*=UTF-8''" + fileName);
+            response.setContentLengthLong(size);
+
+            // 容器支持sendfile时交给Tomcat在请求结束后用sendfile发送文件，不经过用户态拷贝
+            if (Boolean.TRUE.equals(request.getAttribute(SENDFILE_SUPPORT))) {
+                request.setAttribute(SENDFILE_FILENAME, job.file.toAbsolutePath().toString());
+                request.setAttribute(SENDFILE_START, 0L);
+                request.setAttribute(SENDFILE_END, size);
+                return;
+            }
+
+            // 不支持时按普通流复制，经过用户态缓冲区
+            OutputStream out = response.getOutputStream();
+            Files.copy(job.file, out);
+            out.flush();
+        } catch (IOException e) {
+            log.error("下载报表文件失败：{}", jobId, e);
+            throw new RuntimeException("下载报表文件失败");
+        } finally {
+            synchronized (job) {
+                job.readers--;
+            }
+        }
+    }
+
+    @Override
+    public void cleanExpiredJobs() {
+        jobs.values().removeIf(job -> {
+            if (!job.isExpired()) {
+                return false;
+            }
+            synchronized (job) {
+                // 正在下载或最近开始过下载的文件留到下一次清理；删除失败时同样保留任务，下一次重试
+                if (job.isDownloading() || !deleteFile(job.file)) {
+                    return false;
+                }
+                job.deleted = true;
+            }
+            jobIdByKey.remove(job.key, job.jobId);
+            log.info("清理过期报表导出任务：{}", job.jobId);
+            return true;
+        });
+    }
+
+    private void run(ExportJob job) {
+        job.status = ExportJobVO.RUNNING;
+        try (OutputStream out = Files.newOutputStream(job.file)) {
+            reportService.writeBusinessData(job.begin, job.end, out, progress -> job.progress = progress);
+            job.finishTime = LocalDateTime.now();
+            job.status = ExportJobVO.FINISHED;
+            log.info("报表导出完成：{}", job.jobId);
+        } catch (Exception e) {
+            log.error("报表导出失败：{}", job.jobId, e);
+            job.message = e.getMessage();
+            job.finishTime = LocalDateTime.now();
+            job.status = ExportJobVO.FAILED;
+            deleteFile(job.file);
+        }
+    }
+
+    private ExportJob getExistingJob(String jobId) {
+        ExportJob job = jobs.get(jobId);
+        if (job == null) {
+            throw new ReportBusinessException(MessageConstant.EXPORT_JOB_NOT_FOUND);
+        }
+        return job;
+    }
+
+    private boolean deleteFile(Path file) {
+        try {
+            Files.deleteIfExists(file);
+            return true;
+        } catch (IOException e) {
+            log.warn("删除报表文件失败：{}", file, e);
+            return false;
+        }
+    }
+
+    /**
+     * 导出任务
+     */
+    private class ExportJob {
+        private final String jobId;
+        private final String key;
+        private final String type;
+        private final LocalDate begin;
+        private final LocalDate end;
+        private final Path file;
+        private final LocalDateTime createTime = LocalDateTime.now();
+        private volatile Integer status = ExportJobVO.WAITING;
+        private volatile Integer progress = 0;
+        private volatile String message;
+        private volatile LocalDateTime finishTime;
+        //以下字段在 synchronized (job) 中读写
+        //正在用流复制下载的请求数
+        private int readers;
+        //最近一次开始下载的时间
+        private long lastDownloadMillis;
+        //文件已删除，不能再下载
+        private boolean deleted;
+
+        ExportJob(String jobId, String key, String type, LocalDate begin, LocalDate end) {
+            this.jobId = jobId;
+            this.key = key;
+            this.type = type;
+            this.begin = begin;
+            this.end = end;
+            this.file = Paths.get(exportDir, jobId + ".xlsx");
+        }
+
+        /**
+         * 排队中、导出中或者未过期的已完成任务可以复用
+         */
+        boolean isReusable() {
+            return !ExportJobVO.FAILED.equals(status) && !isExpired();
+        }
+
+        boolean isExpired() {
+            LocalDateTime time = finishTime;
+            return time != null && time.plusSeconds(exportTtlSeconds).isBefore(LocalDateTime.now());
+        }
+
+        /**
+         * 有请求正在复制文件，或者最近一次下载还在保护时间内（sendfile可能还没读完）
+         */
+        boolean isDownloading() {
+            return readers > 0
+                    || System.currentTimeMillis() - lastDownloadMillis < TimeUnit.SECONDS.toMillis(downloadGraceSeconds);
+        }
+
+        ExportJobVO toVO() {
+            return ExportJobVO.builder()
+                    .jobId(jobId)
+                    .type(type)
+                    .begin(begin)
+                    .end(end)
+                    .status(status)
+                    .progress(progress)
+                    .message(message)
+                    .createTime(createTime)
+                    .finishTime(finishTime)
+                    .build();
+        }
+    }
+}
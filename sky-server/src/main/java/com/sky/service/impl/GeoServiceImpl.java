@@ -0,0 +1,270 @@
+package com.sky.service.impl;
+
+import com.alibaba.fastjson.JSON;
+import com.alibaba.fastjson.JSONArray;
+import com.alibaba.fastjson.JSONObject;
+import com.sky.exception.OrderBusinessException;
+import com.sky.service.GeoService;
+import com.sky.utils.HttpClientUtil;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import javax.annotation.PostConstruct;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.stream.Collectors;
+
+/**
+ * 地理编码与路线规划
+ * 店铺坐标启动时解析一次；收货地址坐标按地址簿id缓存，地址修改时失效；
+ * 路线距离按坐标对缓存，超过ttl后重新规划
+ */
+@Service
+@Slf4j
+public class GeoServiceImpl implements GeoService {
+    //地理编码接口地址
+    public static final String GEOCODING_URL = "https://api.map.baidu.com/geocoding/v3";
+    //驾车路线规划接口地址
+    public static final String DRIVING_URL = "https://api.map.baidu.com/directionlite/v1/driving";
+
+    @Value("${sky.shop.address}")
+    private String shopAddress;
+
+    @Value("${sky.baidu.ak}")
+    private String ak;
+
+    @Value("${sky.baidu.route-cache-ttl:3600}")
+    private long routeCacheTtlSeconds;
+
+    @Value("${sky.baidu.cache-max-size:10000}")
+    private int cacheMaxSize;
+
+    //店铺坐标
+    private volatile String shopLocation;
+
+    //地址簿id -> 坐标
+    private final Map<Long, AddressLocation> addressCache = new ConcurrentHashMap<>();
+
+    //"起点|终点" -> 距离
+    private final Map<String, RouteDistance> routeCache = new ConcurrentHashMap<>();
+
+    private final LongAdder addressHits = new LongAdder();
+    private final LongAdder addressMisses = new LongAdder();
+    private final LongAdder routeHits = new LongAdder();
+    private final LongAdder routeMisses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+
+    /**
+     * 启动时解析店铺坐标，失败时在第一次下单时重试
+     */
+    @PostConstruct
+    public void init() {
+        try {
+            getShopLocation();
+            log.info("店铺坐标解析完成：{}", shopLocation);
+        } catch (Exception e) {
+            log.warn("启动时店铺地址解析失败，将在下单时重试：{}", e.getMessage());
+        }
+    }
+
+    @Override
+    public String getShopLocation() {
+        String location = shopLocation;
+        if (location == null) {
+            location = geocode(shopAddress, "店铺地址解析失败");
+            shopLocation = location;
+        }
+        return location;
+    }
+
+    @Override
+    public String getAddressLocation(Long addressBookId, String address) {
+        if (addressBookId != null) {
+            AddressLocation cached = addressCache.get(addressBookId);
+            // 地址内容发生变化时视为未命中
+            if (cached != null && cached.getAddress().equals(address)) {
+                addressHits.increment();
+                return cached.getLocation();
+            }
+        }
+
+        addressMisses.increment();
+        String location = geocode(address, "收货地址解析失败");
+        if (addressBookId != null) {
+            trimIfNecessary(addressCache);
+            addressCache.put(addressBookId, new AddressLocation(address, location));
+        }
+        return location;
+    }
+
+    @Override
+    public Integer getDrivingDistance(String origin, String destination) {
+        String key = origin + "|" + destination;
+        RouteDistance cached = routeCache.get(key);
+        if (cached != null && !cached.isExpired()) {
+            routeHits.increment();
+            return cached.getDistance();
+        }
+
+        routeMisses.increment();
+        Map<String, String> map = new HashMap<>();
+        map.put("origin", origin);
+        map.put("destination", destination);
+        map.put("steps_info", "0");
+        map.put("ak", ak);
+
+        // 路线规划
+        String json = HttpClientUtil.doGet(DRIVING_URL, map);
+        JSONObject jsonObject = JSON.parseObject(json);
+        if (jsonObject == null || !"0".equals(jsonObject.getString("status"))) {
+            throw new OrderBusinessException("配送路线规划失败");
+        }
+
+        JSONArray routes = jsonObject.getJSONObject("result").getJSONArray("routes");
+        Integer distance = routes.getJSONObject(0).getInteger("distance");
+
+        trimIfNecessary(routeCache);
+        routeCache.put(key, new RouteDistance(distance,
+                System.currentTimeMillis() + routeCacheTtlSeconds * 1000));
+        return distance;
+    }
+
+    @Override
+    public void evictAddress(Long addressBookId) {
+        if (addressBookId != null) {
+            addressCache.remove(addressBookId);
+        }
+    }
+
+    @Override
+    public Map<String, Long> getStats() {
+        Map<String, Long> stats = new LinkedHashMap<>();
+        stats.put("addressHits", addressHits.sum());
+        stats.put("addressMisses", addressMisses.sum());
+        stats.put("addressSize", (long) addressCache.size());
+        stats.put("routeHits", routeHits.sum());
+        stats.put("routeMisses", routeMisses.sum());
+        stats.put("routeSize", (long) routeCache.size());
+        stats.put("evictions", evictions.sum());
+        return stats;
+    }
+
+    /**
+     * 调用地理编码接口，返回 lat,lng 格式的坐标
+     * @param address
+     * @param errorMsg
+     * @return
+     */
+    private String geocode(String address, String errorMsg) {
+        Map<String, String> map = new HashMap<>();
+        map.put("address", address);
+        map.put("output", "json");
+        map.put("ak", ak);
+
+        String json = HttpClientUtil.doGet(GEOCODING_URL, map);
+        JSONObject jsonObject = JSON.parseObject(json);
+        if (jsonObject == null || !"0".equals(jsonObject.getString("status"))) {
+            throw new OrderBusinessException(errorMsg);
+        }
+
+        JSONObject location = jsonObject.getJSONObject("result").getJSONObject("location");
+        return location.getString("lat") + "," + location.getString("lng");
+    }
+
+    /**
+     * 缓存达到上限时，先清理这个缓存中过期的条目，仍然超限则淘汰最早写入的条目，
+     * 一次淘汰到上限的90%，避免之后每次写入都要遍历
+     * @param cache
+     */
+    private <K> void trimIfNecessary(Map<K, ? extends CacheEntry> cache) {
+        if (cache.size() < cacheMaxSize) {
+            return;
+        }
+        int before = cache.size();
+        cache.values().removeIf(CacheEntry::isExpired);
+
+        int excess = cache.size() - cacheMaxSize * 9 / 10;
+        if (excess > 0) {
+            List<K> oldestKeys = cache.entrySet().stream()
+                    .sorted(Comparator.comparingLong(e -> e.getValue().getWriteNanos()))
+                    .limit(excess)
+                    .map(Map.Entry::getKey)
+                    .collect(Collectors.toList());
+            oldestKeys.forEach(cache::remove);
+        }
+        evictions.add(before - cache.size());
+        log.debug("地理缓存达到上限{}，淘汰{}条", cacheMaxSize, before - cache.size());
+    }
+
+    /**
+     * 缓存条目：是否过期、写入时间（System.nanoTime，只用于比较先后）
+     */
+    private interface CacheEntry {
+        boolean isExpired();
+
+        long getWriteNanos();
+    }
+
+    private static class AddressLocation implements CacheEntry {
+        private final String address;
+        private final String location;
+        private final long writeNanos = System.nanoTime();
+
+        AddressLocation(String address, String location) {
+            this.address = address;
+            this.location = location;
+        }
+
+        /**
+         * 收货地址坐标不过期，地址修改时失效
+         */
+        @Override
+        public boolean isExpired() {
+            return false;
+        }
+
+        @Override
+        public long getWriteNanos() {
+            return writeNanos;
+        }
+
+        String getAddress() {
+            return address;
+        }
+
+        String getLocation() {
+            return location;
+        }
+    }
+
+    private static class RouteDistance implements CacheEntry {
+        private final Integer distance;
+        private final long expireAt;
+        private final long writeNanos = System.nanoTime();
+
+        RouteDistance(Integer distance, long expireAt) {
+            this.distance = distance;
+            this.expireAt = expireAt;
+        }
+
+        Integer getDistance() {
+            return distance;
+        }
+
+        @Override
+        public boolean isExpired() {
+            return System.currentTimeMillis() > expireAt;
+        }
+
+        @Override
+        public long getWriteNanos() {
+            return writeNanos;
+        }
+    }
+}
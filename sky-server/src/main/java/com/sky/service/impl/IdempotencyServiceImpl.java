@@ -0,0 +1,137 @@
+package com.sky.service.impl;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.sky.cache.LocalCache;
+import com.sky.cache.SingleFlight;
+import com.sky.constant.CacheConstant;
+import com.sky.constant.MessageConstant;
+import com.sky.exception.DuplicateRequestException;
+import com.sky.json.JacksonObjectMapper;
+import com.sky.service.IdempotencyService;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.stereotype.Service;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+/**
+ * 幂等key保存在本地缓存和redis：
+ * 本机的重复请求命中本地缓存或合并到正在执行的请求，其他节点的重复请求读取redis中的处理结果，
+ * 都只需要一次查找，不会再进入业务事务。
+ * 处理中的标记使用较短的过期时间（需大于业务处理的最长时间），处理结果写入redis失败时，
+ * 本机仍从本地缓存返回结果，其他节点在标记过期前收到处理中的提示
+ */
+@Service
+@Slf4j
+public class IdempotencyServiceImpl implements IdempotencyService {
+
+    //redis中表示请求仍在处理中的值
+    private static final String PENDING = "PENDING";
+
+    @Autowired
+    private StringRedisTemplate stringRedisTemplate;
+
+    private long ttlSeconds;
+
+    private long pendingTtlSeconds;
+
+    //幂等key -> 处理结果
+    private LocalCache<String, Object> results;
+
+    private final SingleFlight<String, Object> singleFlight = new SingleFlight<>();
+
+    private final JacksonObjectMapper objectMapper = new JacksonObjectMapper();
+
+    private final LongAdder executions = new LongAdder();
+    private final LongAdder redisHits = new LongAdder();
+    private final LongAdder rejected = new LongAdder();
+    private final LongAdder writeFailures = new LongAdder();
+
+    @Autowired
+    public void configure(@Value("${sky.idempotency.ttl:600}") long ttlSeconds,
+                          @Value("${sky.idempotency.pending-ttl:30}") long pendingTtlSeconds,
+                          @Value("${sky.idempotency.local-max-size:10000}") int maxSize) {
+        this.ttlSeconds = ttlSeconds;
+        this.pendingTtlSeconds = pendingTtlSeconds;
+        results = new LocalCache<>("idempotency", TimeUnit.SECONDS.toMillis(ttlSeconds), maxSize);
+    }
+
+    @Override
+    public <T> T execute(String key, Class<T> type, Supplier<T> action) {
+        Object result = results.getIfPresent(key);
+        if (result == null) {
+            // 本机同时到达的重复请求等待同一个结果
+            result = singleFlight.execute(key, () -> load(key, type, action));
+        }
+        return type.cast(result);
+    }
+
+    private <T> T load(String key, Class<T> type, Supplier<T> action) {
+        String redisKey = CacheConstant.IDEMPOTENCY_KEY_PREFIX + key;
+        Boolean acquired = stringRedisTemplate.opsForValue().setIfAbsent(redisKey, PENDING, pendingTtlSeconds, TimeUnit.SECONDS);
+        if (!Boolean.TRUE.equals(acquired)) {
+            String value = stringRedisTemplate.opsForValue().get(redisKey);
+            if (value == null || PENDING.equals(value)) {
+                rejected.increment();
+                throw new DuplicateRequestException(MessageConstant.REQUEST_IN_PROGRESS);
+            }
+            redisHits.increment();
+            T result = read(value, type);
+            results.put(key, result);
+            return result;
+        }
+
+        executions.increment();
+        T result;
+        try {
+            result = action.get();
+        } catch (RuntimeException | Error e) {
+            // 执行失败，允许客户端用同一个key重试
+            stringRedisTemplate.delete(redisKey);
+            throw e;
+        }
+
+        // 业务已经提交，先放入本地缓存，写redis失败也要返回结果
+        results.put(key, result);
+        try {
+            stringRedisTemplate.opsForValue().set(redisKey, write(result), ttlSeconds, TimeUnit.SECONDS);
+        } catch (RuntimeException e) {
+            writeFailures.increment();
+            log.error("幂等处理结果写入redis失败，key：{}", key, e);
+        }
+        return result;
+    }
+
+    @Override
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new LinkedHashMap<>(results.getStats());
+        stats.put("executions", executions.sum());
+        stats.put("coalesced", singleFlight.getCoalesced());
+        stats.put("redisHits", redisHits.sum());
+        stats.put("rejected", rejected.sum());
+        stats.put("writeFailures", writeFailures.sum());
+        return stats;
+    }
+
+    private String write(Object result) {
+        try {
+            return objectMapper.writeValueAsString(result);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private <T> T read(String json, Class<T> type) {
+        try {
+            return objectMapper.readValue(json, type);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
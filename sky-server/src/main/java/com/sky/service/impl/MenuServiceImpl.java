@@ -0,0 +1,268 @@
+package com.sky.service.impl;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.sky.cache.SingleFlight;
+import com.sky.constant.CacheConstant;
+import com.sky.constant.StatusConstant;
+import com.sky.dto.SetmealDishItemDTO;
+import com.sky.entity.Category;
+import com.sky.entity.Dish;
+import com.sky.entity.DishFlavor;
+import com.sky.entity.Setmeal;
+import com.sky.json.JacksonObjectMapper;
+import com.sky.mapper.CategoryMapper;
+import com.sky.mapper.DishFlavorMapper;
+import com.sky.mapper.DishMapper;
+import com.sky.mapper.SetmealMapper;
+import com.sky.result.Result;
+import com.sky.service.MenuService;
+import com.sky.vo.DishItemVO;
+import com.sky.vo.DishVO;
+import com.sky.vo.MenuCategoryVO;
+import com.sky.vo.MenuSetmealVO;
+import com.sky.vo.MenuVO;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.BeanUtils;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.util.DigestUtils;
+
+import javax.servlet.ServletOutputStream;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executor;
+import java.util.stream.Collectors;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * 完整菜单快照
+ * 每个菜单版本只查询和序列化一次，保存序列化后的json和gzip压缩后的字节，请求时直接输出
+ */
+@Service
+@Slf4j
+public class MenuServiceImpl implements MenuService {
+
+    @Autowired
+    private CategoryMapper categoryMapper;
+    @Autowired
+    private DishMapper dishMapper;
+    @Autowired
+    private DishFlavorMapper dishFlavorMapper;
+    @Autowired
+    private SetmealMapper setmealMapper;
+    @Autowired
+    private StringRedisTemplate stringRedisTemplate;
+    @Autowired
+    @Qualifier("applicationTaskExecutor")
+    private Executor taskExecutor;
+
+    //与 MVC 消息转换器相同的序列化规则
+    private final JacksonObjectMapper objectMapper = new JacksonObjectMapper();
+
+    private final SingleFlight<String, MenuSnapshot> singleFlight = new SingleFlight<>();
+
+    //当前菜单快照
+    private volatile MenuSnapshot snapshot;
+
+    @Override
+    public void writeMenu(HttpServletRequest request, HttpServletResponse response) {
+        MenuSnapshot menu = getSnapshot();
+
+        String acceptEncoding = request.getHeader("Accept-Encoding");
+        boolean gzip = acceptEncoding != null && acceptEncoding.contains("gzip");
+
+        String etag = gzip ? menu.gzipEtag : menu.etag;
+        response.setHeader("ETag", etag);
+        response.setHeader("Vary", "Accept-Encoding");
+        response.setHeader("Cache-Control", "no-cache");
+
+        if (isNotModified(request.getHeader("If-None-Match"), etag)) {
+            response.setStatus(HttpServletResponse.SC_NOT_MODIFIED);
+            return;
+        }
+
+        byte[] body = gzip ? menu.gzipBody : menu.body;
+        response.setContentType("application/json;charset=UTF-8");
+        if (gzip) {
+            response.setHeader("Content-Encoding", "gzip");
+        }
+        response.setContentLength(body.length);
+        try (ServletOutputStream out = response.getOutputStream()) {
+            out.write(body);
+            out.flush();
+        } catch (IOException e) {
+            log.warn("输出菜单失败：{}", e.getMessage());
+        }
+    }
+
+    @Override
+    public void invalidate() {
+        Long version = stringRedisTemplate.opsForValue().increment(CacheConstant.MENU_VERSION_KEY);
+        log.info("菜单版本更新为：{}", version);
+
+        // 后台重建，下一个请求不必等待
+        singleFlight.executeAsync(CacheConstant.MENU_VERSION_KEY, this::rebuild, taskExecutor)
+                .whenComplete((result, e) -> {
+                    if (e != null) {
+                        log.warn("重建菜单快照失败", e);
+                    }
+                });
+    }
+
+    /**
+     * 获取当前版本的菜单快照，版本号变化时重建
+     * @return
+     */
+    private MenuSnapshot getSnapshot() {
+        MenuSnapshot menu = snapshot;
+        if (menu != null && menu.version == getVersion()) {
+            return menu;
+        }
+        return singleFlight.execute(CacheConstant.MENU_VERSION_KEY, this::rebuild);
+    }
+
+    /**
+     * 查询起售中的分类、菜品和套餐，序列化并压缩
+     * 先读取版本号再查询数据，查询期间版本变化时下一个请求会再次重建
+     * @return
+     */
+    private MenuSnapshot rebuild() {
+        long version = getVersion();
+        MenuSnapshot menu = snapshot;
+        if (menu != null && menu.version == version) {
+            return menu;
+        }
+
+        MenuVO menuVO = MenuVO.builder()
+                .categories(buildCategories())
+                .build();
+
+        try {
+            byte[] body = objectMapper.writeValueAsBytes(Result.success(menuVO));
+            menu = new MenuSnapshot(version, body, gzip(body));
+        } catch (JsonProcessingException e) {
+            throw new RuntimeException("菜单序列化失败", e);
+        }
+
+        snapshot = menu;
+        log.info("菜单快照已重建，版本：{}，大小：{}字节，压缩后：{}字节", version, menu.body.length, menu.gzipBody.length);
+        return menu;
+    }
+
+    private List<MenuCategoryVO> buildCategories() {
+        // 起售中的菜品和口味，按分类分组
+        Dish dishQuery = new Dish();
+        dishQuery.setStatus(StatusConstant.ENABLE);
+        List<Dish> dishList = dishMapper.list(dishQuery);
+        Map<Long, List<DishFlavor>> flavorMap = dishList.isEmpty() ? Collections.emptyMap()
+                : dishFlavorMapper.getByDishIds(dishList.stream().map(Dish::getId).collect(Collectors.toList()))
+                .stream().collect(Collectors.groupingBy(DishFlavor::getDishId));
+        Map<Long, List<DishVO>> dishMap = dishList.stream().map(d -> {
+            DishVO dishVO = new DishVO();
+            BeanUtils.copyProperties(d, dishVO);
+            dishVO.setFlavors(flavorMap.getOrDefault(d.getId(), new ArrayList<>()));
+            return dishVO;
+        }).collect(Collectors.groupingBy(DishVO::getCategoryId));
+
+        // 起售中的套餐和包含的菜品，按分类分组
+        Setmeal setmealQuery = new Setmeal();
+        setmealQuery.setStatus(StatusConstant.ENABLE);
+        List<Setmeal> setmealList = setmealMapper.list(setmealQuery);
+        Map<Long, List<DishItemVO>> itemMap = setmealList.isEmpty() ? Collections.emptyMap()
+                : setmealMapper.getDishItemsBySetmealIds(setmealList.stream().map(Setmeal::getId).collect(Collectors.toList()))
+                .stream().collect(Collectors.groupingBy(SetmealDishItemDTO::getSetmealId,
+                        Collectors.mapping(item -> DishItemVO.builder()
+                                .name(item.getName())
+                                .copies(item.getCopies())
+                                .image(item.getImage())
+                                .description(item.getDescription())
+                                .build(), Collectors.toList())));
+        Map<Long, List<MenuSetmealVO>> setmealMap = setmealList.stream().map(s -> {
+            MenuSetmealVO setmealVO = new MenuSetmealVO();
+            BeanUtils.copyProperties(s, setmealVO);
+            setmealVO.setDishItems(itemMap.getOrDefault(s.getId(), new ArrayList<>()));
+            return setmealVO;
+        }).collect(Collectors.groupingBy(MenuSetmealVO::getCategoryId));
+
+        // 起售中的分类
+        List<MenuCategoryVO> categories = new ArrayList<>();
+        for (Category category : categoryMapper.list(null)) {
+            MenuCategoryVO categoryVO = MenuCategoryVO.builder()
+                    .id(category.getId())
+                    .type(category.getType())
+                    .name(category.getName())
+                    .sort(category.getSort())
+                    .dishes(dishMap.getOrDefault(category.getId(), new ArrayList<>()))
+                    .setmeals(setmealMap.getOrDefault(category.getId(), new ArrayList<>()))
+                    .build();
+            categories.add(categoryVO);
+        }
+        return categories;
+    }
+
+    /**
+     * 当前菜单版本号，不存在时为0
+     * @return
+     */
+    private long getVersion() {
+        String version = stringRedisTemplate.opsForValue().get(CacheConstant.MENU_VERSION_KEY);
+        return version == null ? 0 : Long.parseLong(version);
+    }
+
+    /**
+     * 只与本次返回的表示（压缩或未压缩）的ETag比较，客户端缓存的另一种表示不能当作未修改
+     * @param ifNoneMatch
+     * @param etag
+     * @return
+     */
+    private boolean isNotModified(String ifNoneMatch, String etag) {
+        if (ifNoneMatch == null) {
+            return false;
+        }
+        for (String tag : ifNoneMatch.split(",")) {
+            tag = tag.trim();
+            if ("*".equals(tag) || etag.equals(tag)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private byte[] gzip(byte[] body) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(body.length / 4 + 64);
+        try (GZIPOutputStream gzipOut = new GZIPOutputStream(out)) {
+            gzipOut.write(body);
+        } catch (IOException e) {
+            throw new RuntimeException("菜单压缩失败", e);
+        }
+        return out.toByteArray();
+    }
+
+    /**
+     * 一个版本的菜单：json字节、gzip字节和对应的强ETag
+     */
+    private static class MenuSnapshot {
+        private final long version;
+        private final byte[] body;
+        private final byte[] gzipBody;
+        private final String etag;
+        private final String gzipEtag;
+
+        MenuSnapshot(long version, byte[] body, byte[] gzipBody) {
+            this.version = version;
+            this.body = body;
+            this.gzipBody = gzipBody;
+            String hash = DigestUtils.md5DigestAsHex(body);
+            this.etag = "\"" + hash + "\"";
+            this.gzipEtag = "\"" + hash + "-gzip\"";
+        }
+    }
+}
@@ -0,0 +1,56 @@
+package com.sky.service.impl;
+
+import com.sky.entity.ShoppingCart;
+import com.sky.mapper.ShoppingCartMapper;
+import com.sky.service.ShoppingCartStore;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Service;
+
+import java.util.List;
+
+/**
+ * 购物车保存在 shopping_cart 表
+ */
+@Service
+@ConditionalOnProperty(name = "sky.cart.store", havingValue = "mysql", matchIfMissing = true)
+public class MysqlShoppingCartStore implements ShoppingCartStore {
+
+    @Autowired
+    private ShoppingCartMapper shoppingCartMapper;
+
+    @Override
+    public List<ShoppingCart> list(Long userId) {
+        return shoppingCartMapper.list(ShoppingCart.builder().userId(userId).build());
+    }
+
+    @Override
+    public boolean increment(ShoppingCart shoppingCart) {
+        //判断当前商品是否在购物车中
+        List<ShoppingCart> shoppingCartList = shoppingCartMapper.list(shoppingCart);
+        if (shoppingCartList == null || shoppingCartList.size() != 1) {
+            return false;
+        }
+
+        //如果已经存在，就更新数量，数量加1
+        ShoppingCart cart = shoppingCartList.get(0);
+        cart.setNumber(cart.getNumber() + 1);
+        shoppingCartMapper.updateNumberById(cart);
+        return true;
+    }
+
+    @Override
+    public void insert(ShoppingCart shoppingCart) {
+        shoppingCartMapper.insert(shoppingCart);
+    }
+
+    @Override
+    public void insertBatch(List<ShoppingCart> shoppingCartList) {
+        shoppingCartMapper.insertBatch(shoppingCartList);
+    }
+
+    @Override
+    public void clean(Long userId) {
+        shoppingCartMapper.deleteByUserId(userId);
+    }
+}
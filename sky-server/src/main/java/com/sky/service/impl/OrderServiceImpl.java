@@ -1,7 +1,5 @@
 package com.sky.service.impl;
 
-import com.alibaba.fastjson.JSONArray;
-import com.alibaba.fastjson.JSONObject;
 import com.github.pagehelper.Page;
 import com.github.pagehelper.PageHelper;
 import com.sky.constant.MessageConstant;
@@ -22,11 +20,16 @@ import com.sky.exception.ShoppingCartBusinessException;
 import com.sky.mapper.AddressBookMapper;
 import com.sky.mapper.OrderDetailMapper;
 import com.sky.mapper.OrderMapper;
-import com.sky.mapper.ShoppingCartMapper;
 import com.sky.result.PageResult;
+import com.sky.service.BusinessStatsService;
+import com.sky.service.DeliveryRangeService;
 import com.sky.service.OrderService;
-import com.sky.utils.HttpClientUtil;
+import com.sky.service.OrderStatusCounterService;
+import com.sky.service.OrderTimeoutService;
+import com.sky.service.ShopService;
+import com.sky.service.ShoppingCartStore;
 import com.sky.vo.OrderPaymentVO;
+import com.sky.utils.SnowflakeIdGenerator;
 import com.sky.vo.OrderStatisticsVO;
 import com.sky.vo.OrderSubmitVO;
 import com.sky.vo.OrderVO;
@@ -42,9 +45,13 @@ import org.springframework.util.CollectionUtils;
 import com.alibaba.fastjson.JSON;
 import java.time.LocalDateTime;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 import java.util.stream.Collectors;
 
 /**
@@ -58,17 +65,26 @@ public class OrderServiceImpl implements OrderService {
     @Autowired
     private OrderDetailMapper orderDetailMapper;
     @Autowired
-    private ShoppingCartMapper shoppingCartMapper;
+    private ShoppingCartStore shoppingCartStore;
+    @Autowired
+    private SnowflakeIdGenerator orderNumberGenerator;
+    @Autowired
+    private OrderTimeoutService orderTimeoutService;
     @Autowired
     private AddressBookMapper addressBookMapper;
     @Autowired
     private WebSocketServer webSocketServer;
+    @Autowired
+    private DeliveryRangeService deliveryRangeService;
+    @Autowired
+    private BusinessStatsService businessStatsService;
+    @Autowired
+    private OrderStatusCounterService orderStatusCounterService;
+    @Autowired
+    private ShopService shopService;
 
-    @Value("${sky.shop.address}")
-    private String shopAddress;
-
-    @Value("${sky.baidu.ak}")
-    private String ak;
+    @Value("${sky.shop.reject-when-closed:false}")
+    private boolean rejectWhenClosed;
 
     /**
      * 用户下单
@@ -78,22 +94,23 @@ public class OrderServiceImpl implements OrderService {
      */
     @Transactional
     public OrderSubmitVO submitOrder(OrdersSubmitDTO ordersSubmitDTO) {
+        // 店铺打烊时不接单（读取本地营业状态）
+        if (rejectWhenClosed && !shopService.isOpen()) {
+            throw new OrderBusinessException(MessageConstant.SHOP_CLOSED);
+        }
+
         // 异常情况处理（收货地址为空、购物车为空）
         AddressBook addressBook = addressBookMapper.getById(ordersSubmitDTO.getAddressBookId());
         if (addressBook == null) {
             throw new AddressBookBusinessException(MessageConstant.ADDRESS_BOOK_IS_NULL);
         }
 
-        // 检查是否超出配送范围
-        checkOutOfRange(addressBook.getCityName() + addressBook.getDistrictName() + addressBook.getDetail());
+        // 检查是否超出配送范围（读取保存地址时预先计算的结果）
+        deliveryRangeService.checkInRange(addressBook);
 
         // 查询当前用户的购物车数据
         Long userId = BaseContext.getCurrentId();
-        ShoppingCart shoppingCart = new ShoppingCart();
-        shoppingCart.setUserId(userId);
-
-
-        List<ShoppingCart> shoppingCartList = shoppingCartMapper.list(shoppingCart);
+        List<ShoppingCart> shoppingCartList = shoppingCartStore.list(userId);
         if (shoppingCartList == null || shoppingCartList.isEmpty()) {
             throw new ShoppingCartBusinessException(MessageConstant.SHOPPING_CART_IS_NULL);
         }
@@ -104,7 +121,7 @@ public class OrderServiceImpl implements OrderService {
         order.setPhone(addressBook.getPhone());
         order.setAddress(addressBook.getDetail());
         order.setConsignee(addressBook.getConsignee());
-        order.setNumber(String.valueOf(System.currentTimeMillis()));
+        order.setNumber(orderNumberGenerator.nextNumber());
         order.setUserId(userId);
         order.setStatus(Orders.PENDING_PAYMENT);
         order.setPayStatus(Orders.UN_PAID);
@@ -112,6 +129,9 @@ public class OrderServiceImpl implements OrderService {
 
         // 向订单表插入数据
         orderMapper.insert(order);
+        businessStatsService.orderSubmitted(order);
+        orderStatusCounterService.created(order.getOrderTime().toLocalDate(), order.getStatus());
+        orderTimeoutService.register(order.getId(), order.getOrderTime());
 
         // 订单明细数据
         List<OrderDetail> orderDetailList = new ArrayList<>();
@@ -126,7 +146,7 @@ public class OrderServiceImpl implements OrderService {
         orderDetailMapper.insertBatch(orderDetailList);
 
         // 清理购物车中的数据
-        shoppingCartMapper.deleteByUserId(userId);
+        shoppingCartStore.clean(userId);
 
         // 封装返回结果
         OrderSubmitVO orderSubmitVO = OrderSubmitVO.builder()
@@ -155,27 +175,27 @@ public class OrderServiceImpl implements OrderService {
      *
      * @param outTradeNo
      */
+    @Transactional
     public void paySuccess(String outTradeNo) {
         Long userId = BaseContext.getCurrentId();
 
-        Orders ordersDB = orderMapper.getByNumberAndUserId(outTradeNo, userId);
-        if (ordersDB == null) {
-            throw new OrderBusinessException(MessageConstant.ORDER_NOT_FOUND);
-        }
-
         Orders orders = Orders.builder()
-                .id(ordersDB.getId())
+                .number(outTradeNo)
+                .userId(userId)
                 .status(Orders.TO_BE_CONFIRMED)
                 .payStatus(Orders.PAID)
                 .checkoutTime(LocalDateTime.now())
                 .build();
 
-        orderMapper.update(orders);
+        // 已被超时取消的订单不能再支付
+        Orders ordersDB = updateStatus(orders, Orders.PENDING_PAYMENT);
+        orderStatusCounterService.transition(ordersDB, Orders.TO_BE_CONFIRMED);
+        orderTimeoutService.cancel(ordersDB.getId());
 
         // 通过WebSocket实现来单提醒
         Map<String, Object> map = new HashMap<>();
         map.put("type", 1); // 1 表示来单提醒
-        map.put("orderId", orders.getId());
+        map.put("orderId", ordersDB.getId());
         map.put("content", "订单号：" + outTradeNo);
         webSocketServer.sendToAllClient(JSON.toJSONString(map));
     }
@@ -200,16 +220,13 @@ public class OrderServiceImpl implements OrderService {
         Page<Orders> page = orderMapper.pageQuery(ordersPageQueryDTO);
         List<OrderVO> list = new ArrayList<>();
 
-        // 查询订单明细然后封装进VO
+        // 一次查询出本页所有订单的明细，然后封装进VO
         if (page != null && page.getTotal() > 0) {
+            Map<Long, List<OrderDetail>> orderDetailMap = getOrderDetailMap(page);
             for(Orders orders: page) {
-                Long orderId = orders.getId(); // 订单id
-
-                // 查询订单明细
-                List<OrderDetail> orderDetails = orderDetailMapper.getByOrderId(orderId);
                 OrderVO orderVO = new OrderVO();
                 BeanUtils.copyProperties(orders, orderVO);
-                orderVO.setOrderDetailList(orderDetails);
+                orderVO.setOrderDetailList(orderDetailMap.getOrDefault(orders.getId(), new ArrayList<>()));
 
                 list.add(orderVO);
             }
@@ -245,6 +262,7 @@ public class OrderServiceImpl implements OrderService {
      * @param id
      */
     @Override
+    @Transactional
     public void userCancelById(Long id) {
         // 根据 id 查询订单
         Orders ordersDB = orderMapper.getById(id);
@@ -278,7 +296,10 @@ public class OrderServiceImpl implements OrderService {
         orders.setStatus(Orders.CANCELLED);
         orders.setCancelReason("用户取消");
         orders.setCancelTime(LocalDateTime.now());
-        orderMapper.update(orders);
+        changeStatus(ordersDB, orders, Orders.PENDING_PAYMENT, Orders.TO_BE_CONFIRMED);
+        businessStatsService.orderCancelled(ordersDB);
+        orderStatusCounterService.transition(ordersDB, Orders.CANCELLED);
+        orderTimeoutService.cancel(ordersDB.getId());
     }
 
     /**
@@ -308,7 +329,7 @@ public class OrderServiceImpl implements OrderService {
         }).collect(Collectors.toList());
 
         // 将购物车对象批量添加到数据库
-        shoppingCartMapper.insertBatch(shoppingCartList);
+        shoppingCartStore.insertBatch(shoppingCartList);
     }
 
     /**
@@ -336,15 +357,8 @@ public class OrderServiceImpl implements OrderService {
      */
     @Override
     public OrderStatisticsVO statistics() {
-        Integer toBeConfirmed = orderMapper.countStatus(Orders.TO_BE_CONFIRMED);
-        Integer confirmed = orderMapper.countStatus(Orders.CONFIRMED);
-        Integer deliveryInProgress = orderMapper.countStatus(Orders.DELIVERY_IN_PROGRESS);
-
-        OrderStatisticsVO orderStatisticsVO = new OrderStatisticsVO();
-        orderStatisticsVO.setToBeConfirmed(toBeConfirmed);
-        orderStatisticsVO.setConfirmed(confirmed);
-        orderStatisticsVO.setDeliveryInProgress(deliveryInProgress);
-        return orderStatisticsVO;
+        // 读取内存中的订单状态计数
+        return orderStatusCounterService.getStatistics();
     }
 
     /**
@@ -353,13 +367,15 @@ public class OrderServiceImpl implements OrderService {
      * @param ordersConfirmDTO
      */
     @Override
+    @Transactional
     public void confirm(OrdersConfirmDTO ordersConfirmDTO) {
         Orders orders = Orders.builder()
                 .id(ordersConfirmDTO.getId())
                 .status(Orders.CONFIRMED)
                 .build();
 
-        orderMapper.update(orders);
+        Orders ordersDB = updateStatus(orders, Orders.TO_BE_CONFIRMED);
+        orderStatusCounterService.transition(ordersDB, Orders.CONFIRMED);
     }
 
     /**
@@ -368,26 +384,19 @@ public class OrderServiceImpl implements OrderService {
      * @param ordersRejectionDTO
      */
     @Override
+    @Transactional
     public void rejection(OrdersRejectionDTO ordersRejectionDTO) {
-        Orders ordersDB = orderMapper.getById(ordersRejectionDTO.getId());
-        if (ordersDB == null || !ordersDB.getStatus().equals(Orders.TO_BE_CONFIRMED)) {
-            throw new OrderBusinessException(MessageConstant.ORDER_STATUS_ERROR);
-        }
-
-        Integer payStatus = ordersDB.getPayStatus();
-        if (payStatus != null && payStatus.equals(Orders.PAID)) {
-            // 模拟支付场景：不调用微信退款接口，直接标记为退款
-            ordersDB.setPayStatus(Orders.REFUND);
-        }
-
         Orders orders = new Orders();
-        orders.setId(ordersDB.getId());
+        orders.setId(ordersRejectionDTO.getId());
         orders.setStatus(Orders.CANCELLED);
         orders.setRejectionReason(ordersRejectionDTO.getRejectionReason());
         orders.setCancelTime(LocalDateTime.now());
-        orders.setPayStatus(ordersDB.getPayStatus());
+        // 待接单的订单都已支付，模拟支付场景：不调用微信退款接口，直接标记为退款
+        orders.setPayStatus(Orders.REFUND);
 
-        orderMapper.update(orders);
+        Orders ordersDB = updateStatus(orders, Orders.TO_BE_CONFIRMED);
+        businessStatsService.orderCancelled(ordersDB);
+        orderStatusCounterService.transition(ordersDB, Orders.CANCELLED);
     }
 
     /**
@@ -396,6 +405,7 @@ public class OrderServiceImpl implements OrderService {
      * @param ordersCancelDTO
      */
     @Override
+    @Transactional
     public void cancel(OrdersCancelDTO ordersCancelDTO) {
         Orders ordersDB = orderMapper.getById(ordersCancelDTO.getId());
         if (ordersDB == null) {
@@ -414,7 +424,12 @@ public class OrderServiceImpl implements OrderService {
         orders.setCancelReason(ordersCancelDTO.getCancelReason());
         orders.setCancelTime(LocalDateTime.now());
         orders.setPayStatus(ordersDB.getPayStatus());
-        orderMapper.update(orders);
+        // 已完成和已取消的订单不能再取消
+        changeStatus(ordersDB, orders, Orders.PENDING_PAYMENT, Orders.TO_BE_CONFIRMED,
+                Orders.CONFIRMED, Orders.DELIVERY_IN_PROGRESS);
+        businessStatsService.orderCancelled(ordersDB);
+        orderStatusCounterService.transition(ordersDB, Orders.CANCELLED);
+        orderTimeoutService.cancel(ordersDB.getId());
     }
 
     /**
@@ -423,16 +438,13 @@ public class OrderServiceImpl implements OrderService {
      * @param id
      */
     @Override
+    @Transactional
     public void delivery(Long id) {
-        Orders ordersDB = orderMapper.getById(id);
-        if (ordersDB == null || !ordersDB.getStatus().equals(Orders.CONFIRMED)) {
-            throw new OrderBusinessException(MessageConstant.ORDER_STATUS_ERROR);
-        }
-
         Orders orders = new Orders();
-        orders.setId(ordersDB.getId());
+        orders.setId(id);
         orders.setStatus(Orders.DELIVERY_IN_PROGRESS);
-        orderMapper.update(orders);
+        Orders ordersDB = updateStatus(orders, Orders.CONFIRMED);
+        orderStatusCounterService.transition(ordersDB, Orders.DELIVERY_IN_PROGRESS);
     }
 
     /**
@@ -441,17 +453,160 @@ public class OrderServiceImpl implements OrderService {
      * @param id
      */
     @Override
+    @Transactional
     public void complete(Long id) {
+        Orders orders = new Orders();
+        orders.setId(id);
+        orders.setStatus(Orders.COMPLETED);
+        orders.setDeliveryTime(LocalDateTime.now());
+        Orders ordersDB = updateStatus(orders, Orders.DELIVERY_IN_PROGRESS);
+        businessStatsService.orderCompleted(ordersDB);
+        orderStatusCounterService.transition(ordersDB, Orders.COMPLETED);
+    }
+
+    /**
+     * 取消一个支付超时的订单
+     *
+     * @param id
+     * @return
+     */
+    @Override
+    @Transactional
+    public boolean cancelTimeoutOrder(Long id) {
         Orders ordersDB = orderMapper.getById(id);
-        if (ordersDB == null || !ordersDB.getStatus().equals(Orders.DELIVERY_IN_PROGRESS)) {
-            throw new OrderBusinessException(MessageConstant.ORDER_STATUS_ERROR);
+        if (ordersDB == null || !Orders.PENDING_PAYMENT.equals(ordersDB.getStatus())) {
+            return false;
+        }
+
+        Orders orders = new Orders();
+        orders.setStatus(Orders.CANCELLED);
+        orders.setCancelReason("支付超时，自动取消");
+        orders.setCancelTime(LocalDateTime.now());
+        // 只取消仍处于待付款状态的订单，与支付回调并发时以先修改的为准
+        if (orderMapper.updateStatusByIds(Collections.singletonList(id), Orders.PENDING_PAYMENT, orders) == 0) {
+            return false;
+        }
+
+        businessStatsService.orderCancelled(ordersDB);
+        orderStatusCounterService.transition(ordersDB, Orders.CANCELLED);
+        return true;
+    }
+
+    /**
+     * 取消一批支付超时的订单
+     *
+     * @param orderTime
+     * @param limit
+     * @return
+     */
+    @Override
+    @Transactional
+    public List<Long> cancelTimeoutOrders(LocalDateTime orderTime, int limit) {
+        List<Orders> ordersList = orderMapper.lockByStatusAndOrdertimeLT(Orders.PENDING_PAYMENT, orderTime, limit);
+        if (ordersList.isEmpty()) {
+            return new ArrayList<>();
+        }
+
+        Orders orders = new Orders();
+        orders.setStatus(Orders.CANCELLED);
+        orders.setCancelReason("支付超时，自动取消");
+        orders.setCancelTime(LocalDateTime.now());
+        List<Orders> updated = updateStatusByIds(ordersList, Orders.PENDING_PAYMENT, orders);
+
+        businessStatsService.ordersCancelled(updated);
+        updated.forEach(x -> orderStatusCounterService.transition(x, Orders.CANCELLED));
+        return updated.stream().map(Orders::getId).collect(Collectors.toList());
+    }
+
+    /**
+     * 完成一批长时间处于派送中的订单
+     *
+     * @param orderTime
+     * @param limit
+     * @return
+     */
+    @Override
+    @Transactional
+    public List<Long> completeDeliveryOrders(LocalDateTime orderTime, int limit) {
+        List<Orders> ordersList = orderMapper.lockByStatusAndOrdertimeLT(Orders.DELIVERY_IN_PROGRESS, orderTime, limit);
+        if (ordersList.isEmpty()) {
+            return new ArrayList<>();
         }
 
         Orders orders = new Orders();
-        orders.setId(ordersDB.getId());
         orders.setStatus(Orders.COMPLETED);
         orders.setDeliveryTime(LocalDateTime.now());
-        orderMapper.update(orders);
+        List<Orders> updated = updateStatusByIds(ordersList, Orders.DELIVERY_IN_PROGRESS, orders);
+
+        businessStatsService.ordersCompleted(updated);
+        updated.forEach(x -> orderStatusCounterService.transition(x, Orders.COMPLETED));
+        return updated.stream().map(Orders::getId).collect(Collectors.toList());
+    }
+
+    /**
+     * 只有一个原状态的订单状态流转：一条带原状态条件的update完成校验和修改，
+     * 并发修改同一订单时只有一个成功，其余抛出订单状态错误；
+     * 修改成功后再查询订单，统计需要下单时间和金额
+     *
+     * @param orders     需要修改的字段和新状态，id为空时按订单号和用户id定位
+     * @param fromStatus 原状态
+     * @return 修改后的订单，状态为修改前的状态
+     */
+    private Orders updateStatus(Orders orders, Integer fromStatus) {
+        if (orderMapper.updateByIdAndStatuses(orders, Collections.singletonList(fromStatus)) == 0) {
+            throw new OrderBusinessException(find(orders) == null
+                    ? MessageConstant.ORDER_NOT_FOUND : MessageConstant.ORDER_STATUS_ERROR);
+        }
+        Orders ordersDB = find(orders);
+        ordersDB.setStatus(fromStatus);
+        return ordersDB;
+    }
+
+    /**
+     * 有多个原状态的订单状态流转（取消订单）：修改的字段和计数取决于原状态，先查询订单，
+     * 校验后以查询到的原状态为条件修改，并发修改同一订单时只有一个成功，其余抛出订单状态错误
+     *
+     * @param ordersDB     修改前的订单
+     * @param orders       需要修改的字段，包括id和新状态
+     * @param fromStatuses 允许流转的原状态
+     */
+    private void changeStatus(Orders ordersDB, Orders orders, Integer... fromStatuses) {
+        if (!Arrays.asList(fromStatuses).contains(ordersDB.getStatus())) {
+            throw new OrderBusinessException(MessageConstant.ORDER_STATUS_ERROR);
+        }
+        if (orderMapper.updateByIdAndStatuses(orders, Collections.singletonList(ordersDB.getStatus())) == 0) {
+            throw new OrderBusinessException(MessageConstant.ORDER_STATUS_ERROR);
+        }
+    }
+
+    private Orders find(Orders orders) {
+        return orders.getId() != null
+                ? orderMapper.getById(orders.getId())
+                : orderMapper.getByNumberAndUserId(orders.getNumber(), orders.getUserId());
+    }
+
+    /**
+     * 一条update修改已锁定订单的状态
+     *
+     * @param ordersList 已加行锁的订单
+     * @param fromStatus
+     * @param orders
+     * @return 实际被修改的订单，统计和计数只处理这些订单
+     */
+    private List<Orders> updateStatusByIds(List<Orders> ordersList, Integer fromStatus, Orders orders) {
+        List<Long> ids = ordersList.stream().map(Orders::getId).collect(Collectors.toList());
+        int rows = orderMapper.updateStatusByIds(ids, fromStatus, orders);
+        if (rows == ids.size()) {
+            return ordersList;
+        }
+
+        // 订单已加行锁，正常情况下不会出现；锁定时都处于原状态，现在处于新状态的就是本次修改的
+        log.warn("批量修改订单状态行数不一致，预期：{}，实际：{}", ids.size(), rows);
+        if (rows == 0) {
+            return new ArrayList<>();
+        }
+        Set<Long> updatedIds = new HashSet<>(orderMapper.getIdsByIdsAndStatus(ids, orders.getStatus()));
+        return ordersList.stream().filter(x -> updatedIds.contains(x.getId())).collect(Collectors.toList());
     }
 
     /**
@@ -479,11 +634,13 @@ public class OrderServiceImpl implements OrderService {
 
         List<Orders> ordersList = page.getResult();
         if (!CollectionUtils.isEmpty(ordersList)) {
+            // 一次查询出本页所有订单的明细
+            Map<Long, List<OrderDetail>> orderDetailMap = getOrderDetailMap(ordersList);
             for (Orders orders : ordersList) {
                 // 将共同字段复制到OrderVO
                 OrderVO orderVO = new OrderVO();
                 BeanUtils.copyProperties(orders, orderVO);
-                String orderDishes = getOrderDishesStr(orders);
+                String orderDishes = getOrderDishesStr(orderDetailMap.getOrDefault(orders.getId(), new ArrayList<>()));
 
                 // 将订单菜品信息封装到orderVO中，并添加到orderVOList
                 orderVO.setOrderDishes(orderDishes);
@@ -494,16 +651,27 @@ public class OrderServiceImpl implements OrderService {
     }
 
     /**
-     * 根据订单id获取菜品信息字符串
+     * 批量查询订单明细，并按订单id分组
      *
-     * @param orders
+     * @param ordersList
      * @return
      */
-    private String getOrderDishesStr(Orders orders) {
-        // 查询订单菜品详情信息（订单中的菜品和数量）
-        List<OrderDetail> orderDetailList = orderDetailMapper.getByOrderId(orders.getId());
-        // @Data 会在编译时自动生成 getter/setter，所以你在源码里看不到，但在 OrderServiceImpl 里可以直接调用。
+    private Map<Long, List<OrderDetail>> getOrderDetailMap(List<Orders> ordersList) {
+        List<Long> orderIds = ordersList.stream().map(Orders::getId).collect(Collectors.toList());
+        if (orderIds.isEmpty()) {
+            return new HashMap<>();
+        }
+        return orderDetailMapper.getByOrderIds(orderIds).stream()
+                .collect(Collectors.groupingBy(OrderDetail::getOrderId));
+    }
 
+    /**
+     * 根据订单明细获取菜品信息字符串
+     *
+     * @param orderDetailList
+     * @return
+     */
+    private String getOrderDishesStr(List<OrderDetail> orderDetailList) {
         // stream + map: 将每个明细转成 "菜品名*数量;"
         List<String> orderDishList = orderDetailList.stream().map(x -> {
             String orderDish = x.getName() + "*" + x.getNumber() + ";";
@@ -513,66 +681,4 @@ public class OrderServiceImpl implements OrderService {
         // 再拼成一个完整字符串，例如：宫保鸡丁*2;可乐*1;
         return String.join("", orderDishList);
     }
-
-    /**
-     * 检查客户的收货地址是否超出配送范围
-     * @param address
-     */
-    private void checkOutOfRange(String address) {
-        Map map = new HashMap();
-        map.put("address",shopAddress);
-        map.put("output","json");
-        map.put("ak",ak);
-
-        // 获取店铺经纬度坐标
-        String shopCoordinate = HttpClientUtil.doGet("https://api.map.baidu.com/geocoding/v3", map);
-        JSONObject jsonObject = JSON.parseObject(shopCoordinate);
-        if(!jsonObject.getString("status").equals("0")){
-            throw new OrderBusinessException("店铺地址解析失败");
-        }
-
-        // 数据解析
-        JSONObject location = jsonObject.getJSONObject("result").getJSONObject("location");
-        String lat = location.getString("lat");
-        String lng = location.getString("lng");
-        String shopLngLat = lng + "," + lat;
-
-        map.put("address", address); // 读取收货地址
-        //获取用户收货地址的经纬度坐标
-        String userCoordinate = HttpClientUtil.doGet("https://api.map.baidu.com/geocoding/v3", map);
-
-        jsonObject = JSON.parseObject(userCoordinate);
-        if(!jsonObject.getString("status").equals("0")){
-            throw new OrderBusinessException("收货地址解析失败");
-        }
-
-        //数据解析
-        location = jsonObject.getJSONObject("result").getJSONObject("location");
-        lat = location.getString("lat");
-        lng = location.getString("lng");
-        //用户收货地址经纬度坐标
-        String userLngLat = lat + "," + lng;
-
-        map.put("origin",shopLngLat);
-        map.put("destination",userLngLat);
-        map.put("steps_info","0");
-
-        // 路线规划
-        String json = HttpClientUtil.doGet("https://api.map.baidu.com/directionlite/v1/driving", map);
-
-        jsonObject = JSON.parseObject(json); // 把 JSON 字符串解析成 JSONObject，这样你就能用 getString()、getJSONObject() 等方法读取字段。
-        if(!jsonObject.getString("status").equals("0")){
-            throw new OrderBusinessException("配送路线规划失败");
-        }
-
-        // 解析数据
-        JSONObject result = jsonObject.getJSONObject("result");
-        JSONArray jsonArray = (JSONArray) result.get("routes");
-        Integer distance = (Integer) ((JSONObject) jsonArray.get(0)).get("distance");
-
-        if(distance > 5000) {
-            // 配送距离超过5000m
-            throw new OrderBusinessException("超出配送范围");
-        }
-    }
 }
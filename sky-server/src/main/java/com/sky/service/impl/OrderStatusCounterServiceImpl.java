@@ -0,0 +1,209 @@
+package com.sky.service.impl;
+
+import com.sky.dto.OrderStatusCountDTO;
+import com.sky.entity.Orders;
+import com.sky.mapper.OrderMapper;
+import com.sky.service.OrderStatusCounterService;
+import com.sky.vo.OrderOverViewVO;
+import com.sky.vo.OrderStatisticsVO;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * 订单状态计数
+ * 每个下单日期一组计数器，下标为订单状态；只保留今天的全部状态和更早日期的未结束状态，
+ * 更早日期里已结束的计数在下次校准时丢弃。
+ * 校准时用数据库快照整体替换，替换之后的状态变化计入新的计数；查询期间发生的状态变化可能不在快照中，
+ * 这部分少计的数量不超过查询期间提交的状态变化数，由下一次校准修正
+ */
+@Service
+@Slf4j
+public class OrderStatusCounterServiceImpl implements OrderStatusCounterService {
+
+    //订单状态的最大值，计数数组下标 1~6
+    private static final int MAX_STATUS = Orders.CANCELLED;
+
+    @Autowired
+    private OrderMapper orderMapper;
+
+    //下单日期 -> 各状态订单数量，校准时整体替换
+    private volatile Map<LocalDate, LongAdder[]> counters = new ConcurrentHashMap<>();
+
+    //是否已经完成第一次校准，之前的查询直接读数据库
+    private volatile boolean ready;
+
+    //计数时持有读锁，替换 counters 时持有写锁，替换之后不会再有状态变化计入旧的计数
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    @Override
+    public void created(LocalDate orderDate, Integer status) {
+        applyAfterCommit(orderDate == null ? LocalDate.now() : orderDate, null, status);
+    }
+
+    @Override
+    public void transition(Orders orders, Integer newStatus) {
+        Integer oldStatus = orders.getStatus();
+        if (newStatus != null && newStatus.equals(oldStatus)) {
+            return;
+        }
+        LocalDate date = orders.getOrderTime() == null ? LocalDate.now() : orders.getOrderTime().toLocalDate();
+        applyAfterCommit(date, oldStatus, newStatus);
+    }
+
+    /**
+     * 在事务中时等事务提交后再计数，事务回滚时不计数
+     * @param date
+     * @param oldStatus
+     * @param newStatus
+     */
+    private void applyAfterCommit(LocalDate date, Integer oldStatus, Integer newStatus) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    apply(date, oldStatus, newStatus);
+                }
+            });
+        } else {
+            apply(date, oldStatus, newStatus);
+        }
+    }
+
+    @Override
+    public OrderStatisticsVO getStatistics() {
+        if (!ready) {
+            return orderMapper.countStatistics();
+        }
+
+        long toBeConfirmed = 0;
+        long confirmed = 0;
+        long deliveryInProgress = 0;
+        for (LongAdder[] counter : counters.values()) {
+            toBeConfirmed += counter[Orders.TO_BE_CONFIRMED].sum();
+            confirmed += counter[Orders.CONFIRMED].sum();
+            deliveryInProgress += counter[Orders.DELIVERY_IN_PROGRESS].sum();
+        }
+
+        OrderStatisticsVO orderStatisticsVO = new OrderStatisticsVO();
+        orderStatisticsVO.setToBeConfirmed((int) toBeConfirmed);
+        orderStatisticsVO.setConfirmed((int) confirmed);
+        orderStatisticsVO.setDeliveryInProgress((int) deliveryInProgress);
+        return orderStatisticsVO;
+    }
+
+    @Override
+    public OrderOverViewVO getTodayOverView() {
+        LocalDate today = LocalDate.now();
+        if (!ready) {
+            return orderMapper.countOverView(LocalDateTime.of(today, LocalTime.MIN));
+        }
+
+        LongAdder[] counter = counters.get(today);
+        if (counter == null) {
+            return new OrderOverViewVO(0, 0, 0, 0, 0);
+        }
+        long allOrders = 0;
+        for (int status = 1; status <= MAX_STATUS; status++) {
+            allOrders += counter[status].sum();
+        }
+        return OrderOverViewVO.builder()
+                .waitingOrders((int) counter[Orders.TO_BE_CONFIRMED].sum())
+                .deliveredOrders((int) counter[Orders.CONFIRMED].sum())
+                .completedOrders((int) counter[Orders.COMPLETED].sum())
+                .cancelledOrders((int) counter[Orders.CANCELLED].sum())
+                .allOrders((int) allOrders)
+                .build();
+    }
+
+    @Override
+    public synchronized void reconcile() {
+        LocalDate today = LocalDate.now();
+        Map<LocalDate, LongAdder[]> fresh = new ConcurrentHashMap<>();
+        for (OrderStatusCountDTO count : orderMapper.countByDateAndStatus(LocalDateTime.of(today, LocalTime.MIN))) {
+            if (count.getDate() == null || !isValidStatus(count.getStatus())) {
+                continue;
+            }
+            fresh.computeIfAbsent(count.getDate(), d -> newCounter())[count.getStatus()].add(count.getCount());
+        }
+
+        boolean initialized = ready;
+        OrderStatisticsVO before = initialized ? getStatistics() : null;
+        OrderOverViewVO todayBefore = initialized ? getTodayOverView() : null;
+        // 快照已包含查询之前提交的状态变化，不再重放
+        lock.writeLock().lock();
+        try {
+            counters = fresh;
+        } finally {
+            lock.writeLock().unlock();
+        }
+
+        if (initialized) {
+            OrderStatisticsVO after = getStatistics();
+            OrderOverViewVO todayAfter = getTodayOverView();
+            if (!before.equals(after) || !todayBefore.equals(todayAfter)) {
+                log.warn("订单状态计数校准存在偏差：{} {} -> {} {}", before, todayBefore, after, todayAfter);
+            }
+        } else {
+            ready = true;
+            log.info("订单状态计数初始化完成：{} {}", getStatistics(), getTodayOverView());
+        }
+    }
+
+    /**
+     * 旧状态减一，新状态加一
+     * @param date
+     * @param oldStatus
+     * @param newStatus
+     */
+    private void apply(LocalDate date, Integer oldStatus, Integer newStatus) {
+        int from = isValidStatus(oldStatus) ? oldStatus : 0;
+        int to = isValidStatus(newStatus) ? newStatus : 0;
+        lock.readLock().lock();
+        try {
+            add(counters, date, from, to);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * 旧状态减一，新状态加一，状态为0时表示没有
+     * @param target
+     * @param date
+     * @param from
+     * @param to
+     */
+    private void add(Map<LocalDate, LongAdder[]> target, LocalDate date, int from, int to) {
+        LongAdder[] counter = target.computeIfAbsent(date, d -> newCounter());
+        if (from != 0) {
+            counter[from].decrement();
+        }
+        if (to != 0) {
+            counter[to].increment();
+        }
+    }
+
+    private boolean isValidStatus(Integer status) {
+        return status != null && status >= 1 && status <= MAX_STATUS;
+    }
+
+    private LongAdder[] newCounter() {
+        LongAdder[] counter = new LongAdder[MAX_STATUS + 1];
+        for (int i = 0; i < counter.length; i++) {
+            counter[i] = new LongAdder();
+        }
+        return counter;
+    }
+}
@@ -0,0 +1,112 @@
+package com.sky.service.impl;
+
+import com.sky.service.OrderTimeoutService;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.DelayQueue;
+import java.util.concurrent.Delayed;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 基于 DelayQueue 的支付超时队列
+ * 取消时只从登记表中移除，队列中的条目到期取出时发现已不在登记表中则直接丢弃，避免 O(n) 的队列删除
+ */
+@Service
+@Slf4j
+public class OrderTimeoutServiceImpl implements OrderTimeoutService {
+
+    @Value("${sky.order.payment-timeout:900}")
+    private long paymentTimeoutSeconds;
+
+    private final DelayQueue<Deadline> queue = new DelayQueue<>();
+
+    //订单id -> 当前有效的截止时间
+    private final Map<Long, Deadline> registered = new ConcurrentHashMap<>();
+
+    private final LongAdder registers = new LongAdder();
+    private final LongAdder cancels = new LongAdder();
+    private final LongAdder expired = new LongAdder();
+
+    @Override
+    public void register(Long orderId, LocalDateTime orderTime) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            // 下单事务提交后再登记，回滚的订单不进入队列
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    doRegister(orderId, orderTime);
+                }
+            });
+        } else {
+            doRegister(orderId, orderTime);
+        }
+    }
+
+    private void doRegister(Long orderId, LocalDateTime orderTime) {
+        long delayNanos = Duration.between(LocalDateTime.now(), orderTime.plusSeconds(paymentTimeoutSeconds)).toNanos();
+        Deadline deadline = new Deadline(orderId, System.nanoTime() + delayNanos);
+        registered.put(orderId, deadline);
+        queue.put(deadline);
+        registers.increment();
+    }
+
+    @Override
+    public void cancel(Long orderId) {
+        if (registered.remove(orderId) != null) {
+            cancels.increment();
+        }
+    }
+
+    @Override
+    public Long take() throws InterruptedException {
+        while (true) {
+            Deadline deadline = queue.take();
+            // 已取消或被重新登记的条目直接丢弃
+            if (registered.remove(deadline.orderId, deadline)) {
+                expired.increment();
+                return deadline.orderId;
+            }
+        }
+    }
+
+    @Override
+    public Map<String, Long> getStats() {
+        Map<String, Long> stats = new LinkedHashMap<>();
+        stats.put("registered", (long) registered.size());
+        stats.put("queued", (long) queue.size());
+        stats.put("registers", registers.sum());
+        stats.put("cancels", cancels.sum());
+        stats.put("expired", expired.sum());
+        return stats;
+    }
+
+    private static class Deadline implements Delayed {
+        private final Long orderId;
+        private final long deadlineNanos;
+
+        Deadline(Long orderId, long deadlineNanos) {
+            this.orderId = orderId;
+            this.deadlineNanos = deadlineNanos;
+        }
+
+        @Override
+        public long getDelay(TimeUnit unit) {
+            return unit.convert(deadlineNanos - System.nanoTime(), TimeUnit.NANOSECONDS);
+        }
+
+        @Override
+        public int compareTo(Delayed o) {
+            return Long.compare(deadlineNanos, ((Deadline) o).deadlineNanos);
+        }
+    }
+}
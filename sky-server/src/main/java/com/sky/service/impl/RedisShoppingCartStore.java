@@ -0,0 +1,314 @@
+package com.sky.service.impl;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.sky.constant.CacheConstant;
+import com.sky.entity.ShoppingCart;
+import com.sky.json.JacksonObjectMapper;
+import com.sky.mapper.ShoppingCartMapper;
+import com.sky.service.ShoppingCartStore;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 购物车保存在redis，每个用户一个hash：
+ * d|菜品id:套餐id:口味 保存商品信息的json，n|菜品id:套餐id:口味 保存数量，数量变化用 HINCRBY 原子累加；
+ * 每次写入都会刷新过期时间，长时间未操作的购物车自动淘汰。
+ * 开启 sky.cart.persist 后，有变化的用户记入集合，由定时任务批量写回 shopping_cart 表；
+ * redis中的购物车过期或丢失后，从 shopping_cart 表读回再写入redis（还有未写回的变化时以redis为准，不读回）
+ */
+@Service
+@Slf4j
+@ConditionalOnProperty(name = "sky.cart.store", havingValue = "redis")
+public class RedisShoppingCartStore implements ShoppingCartStore {
+
+    //商品信息字段前缀
+    private static final String ITEM_PREFIX = "d|";
+    //数量字段前缀
+    private static final String NUMBER_PREFIX = "n|";
+
+    //商品已存在时数量加1，返回1；不存在时返回0
+    private static final RedisScript<Long> INCREMENT_SCRIPT = new DefaultRedisScript<>(
+            "if redis.call('HEXISTS', KEYS[1], ARGV[1]) == 0 then return 0 end " +
+            "redis.call('HINCRBY', KEYS[1], ARGV[2], 1) " +
+            "redis.call('EXPIRE', KEYS[1], ARGV[3]) " +
+            "return 1", Long.class);
+
+    //写入商品信息并累加数量
+    private static final RedisScript<Long> INSERT_SCRIPT = new DefaultRedisScript<>(
+            "redis.call('HSET', KEYS[1], ARGV[1], ARGV[2]) " +
+            "local n = redis.call('HINCRBY', KEYS[1], ARGV[3], ARGV[4]) " +
+            "redis.call('EXPIRE', KEYS[1], ARGV[5]) " +
+            "return n", Long.class);
+
+    //redis中没有购物车时写入数据库中读回的商品，已存在时不覆盖；返回是否写入
+    private static final RedisScript<Long> LOAD_SCRIPT = new DefaultRedisScript<>(
+            "if redis.call('EXISTS', KEYS[1]) == 1 then return 0 end " +
+            "for i = 1, #ARGV - 1, 2 do redis.call('HSET', KEYS[1], ARGV[i], ARGV[i + 1]) end " +
+            "redis.call('EXPIRE', KEYS[1], ARGV[#ARGV]) " +
+            "return 1", Long.class);
+
+    @Autowired
+    private StringRedisTemplate stringRedisTemplate;
+    @Autowired
+    private ShoppingCartMapper shoppingCartMapper;
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Value("${sky.cart.ttl:604800}")
+    private long ttlSeconds;
+
+    @Value("${sky.cart.persist:false}")
+    private boolean persist;
+
+    @Value("${sky.cart.persist-batch-size:100}")
+    private int persistBatchSize;
+
+    private final JacksonObjectMapper objectMapper = new JacksonObjectMapper();
+
+    @Override
+    public List<ShoppingCart> list(Long userId) {
+        List<ShoppingCart> list = read(userId);
+        if (list.isEmpty() && load(userId)) {
+            list = read(userId);
+        }
+        return list;
+    }
+
+    /**
+     * 读取redis中的购物车
+     * @param userId
+     * @return
+     */
+    private List<ShoppingCart> read(Long userId) {
+        // 一次 HGETALL 取出商品信息和数量
+        Map<Object, Object> entries = stringRedisTemplate.opsForHash().entries(key(userId));
+        if (entries.isEmpty()) {
+            return Collections.emptyList();
+        }
+
+        List<ShoppingCart> list = new ArrayList<>();
+        for (Map.Entry<Object, Object> entry : entries.entrySet()) {
+            String field = (String) entry.getKey();
+            if (!field.startsWith(ITEM_PREFIX)) {
+                continue;
+            }
+            String itemKey = field.substring(ITEM_PREFIX.length());
+            Object number = entries.get(NUMBER_PREFIX + itemKey);
+            if (number == null) {
+                continue;
+            }
+            ShoppingCart cart = readItem((String) entry.getValue());
+            if (cart == null) {
+                continue;
+            }
+            // 没有数据库主键，用字段的哈希值作为前端列表的标识
+            cart.setId((long) (itemKey.hashCode() & Integer.MAX_VALUE));
+            cart.setUserId(userId);
+            cart.setNumber(Integer.valueOf((String) number));
+            list.add(cart);
+        }
+        return list;
+    }
+
+    @Override
+    public boolean increment(ShoppingCart shoppingCart) {
+        loadIfAbsent(shoppingCart.getUserId());
+        String itemKey = itemKey(shoppingCart);
+        Long result = stringRedisTemplate.execute(INCREMENT_SCRIPT,
+                Collections.singletonList(key(shoppingCart.getUserId())),
+                ITEM_PREFIX + itemKey, NUMBER_PREFIX + itemKey, String.valueOf(ttlSeconds));
+        boolean exists = result != null && result == 1;
+        if (exists) {
+            markDirty(shoppingCart.getUserId());
+        }
+        return exists;
+    }
+
+    @Override
+    public void insert(ShoppingCart shoppingCart) {
+        loadIfAbsent(shoppingCart.getUserId());
+        write(shoppingCart);
+        markDirty(shoppingCart.getUserId());
+    }
+
+    @Override
+    public void insertBatch(List<ShoppingCart> shoppingCartList) {
+        shoppingCartList.stream()
+                .map(ShoppingCart::getUserId)
+                .distinct()
+                .forEach(this::loadIfAbsent);
+        for (ShoppingCart shoppingCart : shoppingCartList) {
+            write(shoppingCart);
+        }
+        shoppingCartList.stream()
+                .map(ShoppingCart::getUserId)
+                .distinct()
+                .forEach(this::markDirty);
+    }
+
+    @Override
+    public void clean(Long userId) {
+        stringRedisTemplate.delete(key(userId));
+        markDirty(userId);
+    }
+
+    /**
+     * 把有变化的购物车整体写回数据库，每个用户一个事务
+     */
+    @Override
+    public void flush() {
+        if (!persist) {
+            return;
+        }
+
+        // 只处理本轮开始时已有的用户，失败放回的下一轮再试
+        Long size = stringRedisTemplate.opsForSet().size(CacheConstant.CART_DIRTY_KEY);
+        long remaining = size == null ? 0 : size;
+        int total = 0;
+        while (remaining > 0) {
+            // 用 SPOP 取出，多个节点同时执行时不会重复写入
+            List<String> userIds = stringRedisTemplate.opsForSet()
+                    .pop(CacheConstant.CART_DIRTY_KEY, Math.min(remaining, persistBatchSize));
+            if (userIds == null || userIds.isEmpty()) {
+                break;
+            }
+            remaining -= userIds.size();
+            for (String id : userIds) {
+                Long userId = Long.valueOf(id);
+                try {
+                    persist(userId);
+                    total++;
+                } catch (Exception e) {
+                    log.error("购物车写入数据库失败，userId：{}", userId, e);
+                    stringRedisTemplate.opsForSet().add(CacheConstant.CART_DIRTY_KEY, id);
+                }
+            }
+        }
+        if (total > 0) {
+            log.info("购物车写入数据库：{}个用户", total);
+        }
+    }
+
+    /**
+     * 修改购物车之前，redis中没有时先从数据库读回，避免新加入的商品覆盖数据库中已有的购物车
+     * @param userId
+     */
+    private void loadIfAbsent(Long userId) {
+        if (persist && !Boolean.TRUE.equals(stringRedisTemplate.hasKey(key(userId)))) {
+            load(userId);
+        }
+    }
+
+    /**
+     * 从 shopping_cart 表读回购物车写入redis
+     * 用户还有未写回的变化时redis中的数据是最新的（例如刚清空），不读回
+     * @param userId
+     * @return 是否写入了redis
+     */
+    private boolean load(Long userId) {
+        if (!persist || Boolean.TRUE.equals(stringRedisTemplate.opsForSet()
+                .isMember(CacheConstant.CART_DIRTY_KEY, String.valueOf(userId)))) {
+            return false;
+        }
+        List<ShoppingCart> list = shoppingCartMapper.list(ShoppingCart.builder().userId(userId).build());
+        if (list.isEmpty()) {
+            return false;
+        }
+
+        List<String> args = new ArrayList<>(list.size() * 4 + 1);
+        for (ShoppingCart shoppingCart : list) {
+            String itemKey = itemKey(shoppingCart);
+            args.add(ITEM_PREFIX + itemKey);
+            args.add(writeItem(toItem(shoppingCart)));
+            args.add(NUMBER_PREFIX + itemKey);
+            args.add(String.valueOf(shoppingCart.getNumber()));
+        }
+        args.add(String.valueOf(ttlSeconds));
+        Long result = stringRedisTemplate.execute(LOAD_SCRIPT,
+                Collections.singletonList(key(userId)), args.toArray());
+        return result != null && result == 1;
+    }
+
+    private void persist(Long userId) {
+        // 已经从待写回集合中取出，直接读redis，不能再从数据库读回
+        List<ShoppingCart> list = read(userId);
+        transactionTemplate.executeWithoutResult(status -> {
+            shoppingCartMapper.deleteByUserId(userId);
+            if (!list.isEmpty()) {
+                list.forEach(cart -> cart.setId(null));
+                shoppingCartMapper.insertBatch(list);
+            }
+        });
+    }
+
+    private void write(ShoppingCart shoppingCart) {
+        String itemKey = itemKey(shoppingCart);
+        stringRedisTemplate.execute(INSERT_SCRIPT,
+                Collections.singletonList(key(shoppingCart.getUserId())),
+                ITEM_PREFIX + itemKey, writeItem(toItem(shoppingCart)),
+                NUMBER_PREFIX + itemKey, String.valueOf(shoppingCart.getNumber()),
+                String.valueOf(ttlSeconds));
+    }
+
+    /**
+     * 保存在 d| 字段中的商品信息，不含用户id和数量
+     * @param shoppingCart
+     * @return
+     */
+    private ShoppingCart toItem(ShoppingCart shoppingCart) {
+        return ShoppingCart.builder()
+                .name(shoppingCart.getName())
+                .dishId(shoppingCart.getDishId())
+                .setmealId(shoppingCart.getSetmealId())
+                .dishFlavor(shoppingCart.getDishFlavor())
+                .amount(shoppingCart.getAmount())
+                .image(shoppingCart.getImage())
+                .createTime(shoppingCart.getCreateTime())
+                .build();
+    }
+
+    private void markDirty(Long userId) {
+        if (persist) {
+            stringRedisTemplate.opsForSet().add(CacheConstant.CART_DIRTY_KEY, String.valueOf(userId));
+        }
+    }
+
+    private String key(Long userId) {
+        return CacheConstant.CART_KEY_PREFIX + userId;
+    }
+
+    private String itemKey(ShoppingCart shoppingCart) {
+        return (shoppingCart.getDishId() == null ? "" : shoppingCart.getDishId()) + ":"
+                + (shoppingCart.getSetmealId() == null ? "" : shoppingCart.getSetmealId()) + ":"
+                + (shoppingCart.getDishFlavor() == null ? "" : shoppingCart.getDishFlavor());
+    }
+
+    private String writeItem(ShoppingCart item) {
+        try {
+            return objectMapper.writeValueAsString(item);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private ShoppingCart readItem(String json) {
+        try {
+            return objectMapper.readValue(json, ShoppingCart.class);
+        } catch (JsonProcessingException e) {
+            log.warn("购物车数据解析失败：{}", json);
+            return null;
+        }
+    }
+}
@@ -1,11 +1,13 @@
 package com.sky.service.impl;
 
+import com.sky.constant.MessageConstant;
 import com.sky.dto.GoodsSalesDTO;
-import com.sky.entity.Orders;
+import com.sky.entity.DailyBusinessStats;
+import com.sky.exception.ReportBusinessException;
 import com.sky.mapper.OrderMapper;
 import com.sky.mapper.UserMapper;
+import com.sky.service.BusinessStatsService;
 import com.sky.service.ReportService;
-import com.sky.service.WorkspaceService;
 import com.sky.vo.BusinessDataVO;
 import com.sky.vo.OrderReportVO;
 import com.sky.vo.SalesTop10ReportVO;
@@ -13,26 +15,36 @@ import com.sky.vo.TurnoverReportVO;
 import com.sky.vo.UserReportVO;
 import lombok.extern.slf4j.Slf4j;
 import org.apache.commons.lang.StringUtils;
+import org.apache.poi.ss.usermodel.Cell;
+import org.apache.poi.ss.usermodel.CellStyle;
+import org.apache.poi.xssf.streaming.SXSSFRow;
+import org.apache.poi.xssf.streaming.SXSSFSheet;
+import org.apache.poi.xssf.streaming.SXSSFWorkbook;
 import org.apache.poi.xssf.usermodel.XSSFCell;
 import org.apache.poi.xssf.usermodel.XSSFRow;
 import org.apache.poi.xssf.usermodel.XSSFSheet;
 import org.apache.poi.xssf.usermodel.XSSFWorkbook;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
 import javax.servlet.ServletOutputStream;
 import javax.servlet.http.HttpServletResponse;
 import java.io.IOException;
 import java.io.InputStream;
+import java.io.OutputStream;
+import java.math.BigDecimal;
 import java.net.URLEncoder;
 import java.nio.charset.StandardCharsets;
 import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.time.LocalTime;
+import java.time.temporal.ChronoUnit;
 import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.function.IntConsumer;
 import java.util.stream.Collectors;
 
 @Service
@@ -43,7 +55,18 @@ public class ReportServiceImpl implements ReportService {
     @Autowired
     private UserMapper userMapper;
     @Autowired
-    private WorkspaceService workspaceService;
+    private BusinessStatsService businessStatsService;
+
+    //报表明细数据的起始行
+    private static final int DETAIL_ROW_START = 7;
+
+    //导出时内存中保留的行数
+    @Value("${sky.report.export-row-window:100}")
+    private int exportRowWindow;
+
+    //单次导出的最大天数
+    @Value("${sky.report.export-max-days:1100}")
+    private long exportMaxDays;
 
     @Override
     public TurnoverReportVO getTurnover(LocalDate begin, LocalDate end) {
@@ -53,24 +76,12 @@ public class ReportServiceImpl implements ReportService {
          * @param end
          * @return
          */
-        List<LocalDate> dateList = new ArrayList<>();
-        dateList.add(begin);
-        while(!begin.equals(end)){
-            begin = begin.plusDays(1); //日期计算，获得指定日期后1天的日期
-            dateList.add(begin);
-        }
+        List<LocalDate> dateList = getDateList(begin, end);
+        Map<LocalDate, DailyBusinessStats> statsMap = businessStatsService.getDailyStats(begin, end);
 
         List<Double> turnoverList = new ArrayList<>();
         for(LocalDate date:dateList) {
-            LocalDateTime beginTime = LocalDateTime.of(date, LocalTime.MIN);
-            LocalDateTime endTime = LocalDateTime.of(date, LocalTime.MAX);
-            Map<String, Object> map = new HashMap<>();
-            map.put("status", Orders.COMPLETED);
-            map.put("begin",  beginTime);
-            map.put("end",  endTime);
-            Double turnover = orderMapper.sumByMap(map);
-            turnover = turnover == null ? 0.0 : turnover;
-            turnoverList.add(turnover);
+            turnoverList.add(statsMap.get(date).getTurnover().doubleValue());
         }
 
         return TurnoverReportVO.builder()
@@ -81,22 +92,19 @@ public class ReportServiceImpl implements ReportService {
 
     @Override
     public UserReportVO getUserStatistics(LocalDate begin, LocalDate end) {
-        List<LocalDate> dateList = new ArrayList<>();
-        dateList.add(begin);
-        while (!begin.equals(end)){
-            begin = begin.plusDays(1);
-            dateList.add(begin);
-        }
+        List<LocalDate> dateList = getDateList(begin, end);
+        //区间内每天的新增用户数
+        Map<LocalDate, DailyBusinessStats> statsMap = businessStatsService.getDailyStats(begin, end);
+        //区间开始之前的用户总数 select count(id) from user where create_time < ?
+        Integer totalUser = getUserCount(null, LocalDateTime.of(begin.minusDays(1), LocalTime.MAX));
+        totalUser = totalUser == null ? 0 : totalUser;
+
         List<Integer> newUserList = new ArrayList<>(); //新增用户数
         List<Integer> totalUserList = new ArrayList<>(); //总用户数
-
         for (LocalDate date:dateList){
-            LocalDateTime beginTime = LocalDateTime.of(date, LocalTime.MIN);
-            LocalDateTime endTime = LocalDateTime.of(date, LocalTime.MAX);
-            //新增用户数量 select count(id) from user where create_time > ? and create_time < ?
-            Integer newUser = getUserCount(beginTime, endTime);
-            //总用户数量 select count(id) from user where  create_time < ?
-            Integer totalUser = getUserCount(null, endTime);
+            Integer newUser = statsMap.get(date).getNewUsers();
+            //总用户数 = 之前的总数 + 当天新增
+            totalUser += newUser;
 
             newUserList.add(newUser);
             totalUserList.add(totalUser);
@@ -123,24 +131,15 @@ public class ReportServiceImpl implements ReportService {
 
     @Override
     public OrderReportVO getOrderStatistics(LocalDate begin, LocalDate end) {
-        List<LocalDate> dateList = new ArrayList<>();
-        dateList.add(begin);
-        while (!begin.equals(end)) {
-            begin = begin.plusDays(1);
-            dateList.add(begin);
-        }
+        List<LocalDate> dateList = getDateList(begin, end);
+        Map<LocalDate, DailyBusinessStats> statsMap = businessStatsService.getDailyStats(begin, end);
 
         List<Integer> orderCountList = new ArrayList<>();
         List<Integer> validOrderCountList = new ArrayList<>();
         for (LocalDate date : dateList) {
-            LocalDateTime beginTime = LocalDateTime.of(date, LocalTime.MIN);
-            LocalDateTime endTime = LocalDateTime.of(date, LocalTime.MAX);
-
-            Integer orderCount = getOrderCount(beginTime, endTime, null);
-            Integer validOrderCount = getOrderCount(beginTime, endTime, Orders.COMPLETED);
-
-            orderCountList.add(orderCount);
-            validOrderCountList.add(validOrderCount);
+            DailyBusinessStats stats = statsMap.get(date);
+            orderCountList.add(stats.getTotalOrders());
+            validOrderCountList.add(stats.getValidOrders());
         }
 
         Integer totalOrderCount = orderCountList.stream().mapToInt(Integer::intValue).sum();
@@ -160,6 +159,22 @@ public class ReportServiceImpl implements ReportService {
                 .build();
     }
 
+    /**
+     * 获取时间区间内的每一天
+     * @param begin
+     * @param end
+     * @return
+     */
+    private List<LocalDate> getDateList(LocalDate begin, LocalDate end) {
+        List<LocalDate> dateList = new ArrayList<>();
+        dateList.add(begin);
+        while (!begin.equals(end)) {
+            begin = begin.plusDays(1); //日期计算，获得指定日期后1天的日期
+            dateList.add(begin);
+        }
+        return dateList;
+    }
+
     @Override
     public SalesTop10ReportVO getSalesTop10(LocalDate begin, LocalDate end) {
         LocalDateTime beginTime = LocalDateTime.of(begin, LocalTime.MIN);
@@ -179,66 +194,23 @@ public class ReportServiceImpl implements ReportService {
                 .build();
     }
 
-    /**
-     * 根据时间区间统计指定状态的订单数量
-     * @param beginTime
-     * @param endTime
-     * @param status
-     * @return
-     */
-    private Integer getOrderCount(LocalDateTime beginTime, LocalDateTime endTime, Integer status) {
-        Map<String, Object> map = new HashMap<>();
-        map.put("status", status);
-        map.put("begin", beginTime);
-        map.put("end", endTime);
-        return orderMapper.countByMap(map);
-    }
-
     @Override
-    public void exportBusinessData(HttpServletResponse response) {
-        LocalDate begin = LocalDate.now().minusDays(30);
-        LocalDate end = LocalDate.now().minusDays(1);
-
-        BusinessDataVO businessData = workspaceService.getBusinessData(
-                LocalDateTime.of(begin, LocalTime.MIN),
-                LocalDateTime.of(end, LocalTime.MAX));
-
-        try (InputStream inputStream = this.getClass().getClassLoader()
-                .getResourceAsStream("template/运营数据报表模板.xlsx");
-             XSSFWorkbook excel = inputStream != null ? new XSSFWorkbook(inputStream) : new XSSFWorkbook()) {
-
-            XSSFSheet sheet = excel.getNumberOfSheets() > 0 ? excel.getSheetAt(0) : excel.createSheet("Sheet1");
-            initReportSheetIfNeeded(sheet);
-
-            getCell(sheet, 1, 1).setCellValue(begin + "至" + end);
-            getCell(sheet, 3, 2).setCellValue(businessData.getTurnover());
-            getCell(sheet, 3, 4).setCellValue(businessData.getOrderCompletionRate());
-            getCell(sheet, 3, 6).setCellValue(businessData.getNewUsers());
-            getCell(sheet, 4, 2).setCellValue(businessData.getValidOrderCount());
-            getCell(sheet, 4, 4).setCellValue(businessData.getUnitPrice());
-
-            for (int i = 0; i < 30; i++) {
-                LocalDate date = begin.plusDays(i);
-                businessData = workspaceService.getBusinessData(
-                        LocalDateTime.of(date, LocalTime.MIN),
-                        LocalDateTime.of(date, LocalTime.MAX));
-
-                int rowIndex = 7 + i;
-                getCell(sheet, rowIndex, 1).setCellValue(date.toString());
-                getCell(sheet, rowIndex, 2).setCellValue(businessData.getTurnover());
-                getCell(sheet, rowIndex, 3).setCellValue(businessData.getValidOrderCount());
-                getCell(sheet, rowIndex, 4).setCellValue(businessData.getOrderCompletionRate());
-                getCell(sheet, rowIndex, 5).setCellValue(businessData.getUnitPrice());
-                getCell(sheet, rowIndex, 6).setCellValue(businessData.getNewUsers());
-            }
+    public void exportBusinessData(LocalDate begin, LocalDate end, HttpServletResponse response) {
+        // 默认导出近30天
+        if (begin == null || end == null) {
+            begin = LocalDate.now().minusDays(30);
+            end = LocalDate.now().minusDays(1);
+        }
+        checkExportRange(begin, end);
 
+        try {
             String fileName = URLEncoder.encode("运营数据报表.xlsx", StandardCharsets.UTF_8.name())
                     .replaceAll("\\+", "%20");
             response.setContentType("application/vnd.openxmlformats-officedocument.spreadsheetml.sheet");
             response.setHeader("Content-Disposition", "attachment; filename*=UTF-8''" + fileName);
 
             try (ServletOutputStream out = response.getOutputStream()) {
-                excel.write(out);
+                writeBusinessData(begin, end, out, null);
                 out.flush();
             }
         } catch (IOException e) {
@@ -247,6 +219,121 @@ public class ReportServiceImpl implements ReportService {
         }
     }
 
+    /**
+     * 把日期区间内的运营数据写成excel
+     * 一次查询取出区间内每天的汇总数据，明细行用SXSSF流式写出，只在内存中保留exportRowWindow行
+     * @param begin
+     * @param end
+     * @param out
+     * @param progressListener
+     * @throws IOException
+     */
+    @Override
+    public void writeBusinessData(LocalDate begin, LocalDate end, OutputStream out,
+                                  IntConsumer progressListener) throws IOException {
+        checkExportRange(begin, end);
+        Map<LocalDate, DailyBusinessStats> statsMap = businessStatsService.getDailyStats(begin, end);
+
+        try (InputStream inputStream = this.getClass().getClassLoader()
+                .getResourceAsStream("template/运营数据报表模板.xlsx");
+             XSSFWorkbook template = inputStream != null ? new XSSFWorkbook(inputStream) : new XSSFWorkbook()) {
+
+            XSSFSheet templateSheet = template.getNumberOfSheets() > 0 ? template.getSheetAt(0) : template.createSheet("Sheet1");
+            initReportSheetIfNeeded(templateSheet);
+
+            // 概览数据
+            BigDecimal turnover = BigDecimal.ZERO;
+            int totalOrderCount = 0;
+            int validOrderCount = 0;
+            int newUsers = 0;
+            for (DailyBusinessStats stats : statsMap.values()) {
+                turnover = turnover.add(stats.getTurnover());
+                totalOrderCount += stats.getTotalOrders();
+                validOrderCount += stats.getValidOrders();
+                newUsers += stats.getNewUsers();
+            }
+            getCell(templateSheet, 1, 1).setCellValue(begin + "至" + end);
+            getCell(templateSheet, 3, 2).setCellValue(turnover.doubleValue());
+            getCell(templateSheet, 3, 4).setCellValue(getOrderCompletionRate(totalOrderCount, validOrderCount));
+            getCell(templateSheet, 3, 6).setCellValue(newUsers);
+            getCell(templateSheet, 4, 2).setCellValue(validOrderCount);
+            getCell(templateSheet, 4, 4).setCellValue(getUnitPrice(turnover, validOrderCount));
+
+            // 模板中的明细行交给SXSSF重新写，写之前记下每列的样式
+            Map<Integer, CellStyle> detailStyles = new HashMap<>();
+            XSSFRow styleRow = templateSheet.getRow(DETAIL_ROW_START);
+            if (styleRow != null) {
+                styleRow.forEach(cell -> detailStyles.put(cell.getColumnIndex(), cell.getCellStyle()));
+            }
+            for (int i = templateSheet.getLastRowNum(); i >= DETAIL_ROW_START; i--) {
+                XSSFRow row = templateSheet.getRow(i);
+                if (row != null) {
+                    templateSheet.removeRow(row);
+                }
+            }
+
+            SXSSFWorkbook excel = new SXSSFWorkbook(template, exportRowWindow);
+            try {
+                SXSSFSheet sheet = excel.getSheetAt(0);
+                int rowIndex = DETAIL_ROW_START;
+                int written = 0;
+                for (DailyBusinessStats stats : statsMap.values()) {
+                    int total = stats.getTotalOrders();
+                    int valid = stats.getValidOrders();
+
+                    SXSSFRow row = sheet.createRow(rowIndex++);
+                    createCell(row, 1, detailStyles).setCellValue(stats.getStatDate().toString());
+                    createCell(row, 2, detailStyles).setCellValue(stats.getTurnover().doubleValue());
+                    createCell(row, 3, detailStyles).setCellValue(valid);
+                    createCell(row, 4, detailStyles).setCellValue(getOrderCompletionRate(total, valid));
+                    createCell(row, 5, detailStyles).setCellValue(getUnitPrice(stats.getTurnover(), valid));
+                    createCell(row, 6, detailStyles).setCellValue(stats.getNewUsers());
+
+                    // 明细行写完算90%，剩下的是写出文件
+                    if (progressListener != null) {
+                        progressListener.accept(++written * 90 / statsMap.size());
+                    }
+                }
+                excel.write(out);
+                if (progressListener != null) {
+                    progressListener.accept(100);
+                }
+            } finally {
+                // 删除SXSSF写出的临时文件
+                excel.dispose();
+            }
+        }
+    }
+
+    /**
+     * 校验导出的日期区间
+     * @param begin
+     * @param end
+     */
+    @Override
+    public void checkExportRange(LocalDate begin, LocalDate end) {
+        if (begin.isAfter(end) || ChronoUnit.DAYS.between(begin, end) >= exportMaxDays) {
+            throw new ReportBusinessException(MessageConstant.REPORT_DATE_RANGE_ERROR);
+        }
+    }
+
+    private Double getOrderCompletionRate(int totalOrderCount, int validOrderCount) {
+        return totalOrderCount == 0 ? 0.0 : (double) validOrderCount / totalOrderCount;
+    }
+
+    private Double getUnitPrice(BigDecimal turnover, int validOrderCount) {
+        return validOrderCount == 0 ? 0.0 : turnover.doubleValue() / validOrderCount;
+    }
+
+    private Cell createCell(SXSSFRow row, int cellIndex, Map<Integer, CellStyle> styles) {
+        Cell cell = row.createCell(cellIndex);
+        CellStyle style = styles.get(cellIndex);
+        if (style != null) {
+            cell.setCellStyle(style);
+        }
+        return cell;
+    }
+
     private void initReportSheetIfNeeded(XSSFSheet sheet) {
         getCell(sheet, 0, 1).setCellValue("运营数据报表");
         getCell(sheet, 1, 0).setCellValue("时间");
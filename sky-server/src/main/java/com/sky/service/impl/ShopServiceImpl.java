@@ -0,0 +1,84 @@
+package com.sky.service.impl;
+
+import com.sky.constant.CacheConstant;
+import com.sky.service.ShopService;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.redis.connection.Message;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+import org.springframework.stereotype.Service;
+
+import javax.annotation.PostConstruct;
+import java.util.Objects;
+
+/**
+ * 店铺营业状态
+ * 读请求只访问本地字段；修改时写入redis并发布通知，各节点收到后更新，另有定时任务从redis校准
+ */
+@Service
+@Slf4j
+public class ShopServiceImpl implements ShopService {
+
+    @Autowired
+    private RedisTemplate<String, Object> redisTemplate;
+    @Autowired
+    private RedisMessageListenerContainer redisMessageListenerContainer;
+
+    //当前营业状态，redis中未设置或还没读取到时为null
+    private volatile Integer status;
+
+    @PostConstruct
+    public void init() {
+        redisMessageListenerContainer.addMessageListener(this::onStatusMessage,
+                new ChannelTopic(CacheConstant.SHOP_STATUS_CHANNEL));
+        try {
+            refresh();
+        } catch (Exception e) {
+            log.warn("启动时读取店铺营业状态失败，等待定时校准：{}", e.getMessage());
+        }
+    }
+
+    @Override
+    public void setStatus(Integer status) {
+        redisTemplate.opsForValue().set(CacheConstant.SHOP_STATUS_KEY, status);
+        this.status = status;
+        redisTemplate.convertAndSend(CacheConstant.SHOP_STATUS_CHANNEL, status);
+    }
+
+    @Override
+    public Integer getStatus() {
+        // 未设置时按营业中处理，与下单时的营业状态校验一致
+        return status == null ? OPEN : status;
+    }
+
+    @Override
+    public boolean isOpen() {
+        return !CLOSED.equals(getStatus());
+    }
+
+    @Override
+    public void refresh() {
+        Object value = redisTemplate.opsForValue().get(CacheConstant.SHOP_STATUS_KEY);
+        Integer current = value instanceof Integer ? (Integer) value : null;
+        if (!Objects.equals(current, status)) {
+            log.info("店铺营业状态校准为：{}", current == null ? "未设置" : OPEN.equals(current) ? "营业中" : "打烊中");
+            status = current;
+        }
+    }
+
+    /**
+     * 收到营业状态变更通知
+     * @param message
+     * @param pattern
+     */
+    private void onStatusMessage(Message message, byte[] pattern) {
+        Object value = redisTemplate.getValueSerializer().deserialize(message.getBody());
+        if (value instanceof Integer) {
+            status = (Integer) value;
+        } else {
+            refresh();
+        }
+    }
+}
@@ -8,8 +8,8 @@ import com.sky.entity.Setmeal;
 import com.sky.entity.ShoppingCart;
 import com.sky.mapper.DishMapper;
 import com.sky.mapper.SetmealMapper;
-import com.sky.mapper.ShoppingCartMapper;
 import com.sky.service.ShoppingCartService;
+import com.sky.service.ShoppingCartStore;
 import org.springframework.beans.BeanUtils;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
@@ -20,7 +20,7 @@ import java.util.List;
 public class ShoppingCartServiceImpl implements ShoppingCartService {
 
     @Autowired
-    private ShoppingCartMapper shoppingCartMapper;
+    private ShoppingCartStore shoppingCartStore;
     @Autowired
     private DishMapper dishMapper;
     @Autowired
@@ -37,15 +37,8 @@ public class ShoppingCartServiceImpl implements ShoppingCartService {
         //只能查询自己的购物车数据
         shoppingCart.setUserId(BaseContext.getCurrentId());
 
-        //判断当前商品是否在购物车中
-        List<ShoppingCart> shoppingCartList = shoppingCartMapper.list(shoppingCart);
-
-        if (shoppingCartList != null && shoppingCartList.size() == 1) {
-            //如果已经存在，就更新数量，数量加1
-            shoppingCart = shoppingCartList.get(0);
-            shoppingCart.setNumber(shoppingCart.getNumber() + 1);
-            shoppingCartMapper.updateNumberById(shoppingCart);
-        } else {
+        //如果已经存在，数量加1
+        if (!shoppingCartStore.increment(shoppingCart)) {
             //如果不存在，插入数据，数量就是1
 
             //判断当前添加到购物车的是菜品还是套餐
@@ -65,22 +58,19 @@ public class ShoppingCartServiceImpl implements ShoppingCartService {
             }
             shoppingCart.setNumber(1);
             shoppingCart.setCreateTime(LocalDateTime.now());
-            shoppingCartMapper.insert(shoppingCart);
+            shoppingCartStore.insert(shoppingCart);
         }
     }
 
     @Override
     public List<ShoppingCart> showShoppingCart() {
         // 构造查询条件：只查当前用户的购物车
-        return shoppingCartMapper.list(ShoppingCart.
-                builder().
-                userId(BaseContext.getCurrentId()).
-                // BaseContext.getCurrentId() 是当前登录用户 id，所以只会查自己的购物车。
-                build());
+        // BaseContext.getCurrentId() 是当前登录用户 id，所以只会查自己的购物车。
+        return shoppingCartStore.list(BaseContext.getCurrentId());
     }
 
     @Override
     public void cleanShoppingCart() {
-        shoppingCartMapper.deleteByUserId(BaseContext.getCurrentId());
+        shoppingCartStore.clean(BaseContext.getCurrentId());
     }
 }
\ No newline at end of file
@@ -1,11 +1,14 @@
 package com.sky.service.impl;
 
-import com.sky.constant.StatusConstant;
+import com.sky.cache.LocalCache;
+import com.sky.entity.DailyBusinessStats;
 import com.sky.entity.Orders;
 import com.sky.mapper.DishMapper;
 import com.sky.mapper.OrderMapper;
 import com.sky.mapper.SetmealMapper;
 import com.sky.mapper.UserMapper;
+import com.sky.service.BusinessStatsService;
+import com.sky.service.OrderStatusCounterService;
 import com.sky.service.WorkspaceService;
 import com.sky.vo.BusinessDataVO;
 import com.sky.vo.DishOverViewVO;
@@ -13,8 +16,11 @@ import com.sky.vo.OrderOverViewVO;
 import com.sky.vo.SetmealOverViewVO;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
+import java.math.BigDecimal;
+import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.time.LocalTime;
 import java.util.HashMap;
@@ -32,6 +38,20 @@ public class WorkspaceServiceImpl implements WorkspaceService {
     private DishMapper dishMapper;
     @Autowired
     private SetmealMapper setmealMapper;
+    @Autowired
+    private BusinessStatsService businessStatsService;
+    @Autowired
+    private OrderStatusCounterService orderStatusCounterService;
+
+    //工作台总览数据缓存，多个管理端页面同时轮询时共享一次查询结果
+    private LocalCache<String, DishOverViewVO> dishOverViewCache;
+    private LocalCache<String, SetmealOverViewVO> setmealOverViewCache;
+
+    @Value("${sky.workspace.overview-cache-ttl:3000}")
+    public void setOverViewCacheTtl(long ttlMillis) {
+        dishOverViewCache = new LocalCache<>("dishOverView", ttlMillis, 1);
+        setmealOverViewCache = new LocalCache<>("setmealOverView", ttlMillis, 1);
+    }
 
     /**
      * 根据时间段统计营业数据
@@ -41,6 +61,11 @@ public class WorkspaceServiceImpl implements WorkspaceService {
      */
     @Override
     public BusinessDataVO getBusinessData(LocalDateTime begin, LocalDateTime end) {
+        // 按整天查询时读每日汇总，已结束的日期不再扫描订单表和用户表
+        if (begin.toLocalTime().equals(LocalTime.MIN) && end.toLocalTime().equals(LocalTime.MAX)) {
+            return getBusinessDataByDailyStats(begin.toLocalDate(), end.toLocalDate());
+        }
+
         Map<String, Object> map = new HashMap<>();
         map.put("begin", begin);
         map.put("end", end);
@@ -78,60 +103,58 @@ public class WorkspaceServiceImpl implements WorkspaceService {
     }
 
     /**
-     * 查询订单管理数据
+     * 根据每日汇总统计营业数据
+     * @param begin
+     * @param end
      * @return
      */
-    @Override
-    public OrderOverViewVO getOrderOverView() {
-        Map<String, Object> map = new HashMap<>();
-        map.put("begin", LocalDateTime.now().with(LocalTime.MIN));
-        map.put("status", Orders.TO_BE_CONFIRMED);
-
-        //待接单
-        Integer waitingOrders = orderMapper.countByMap(map);
+    private BusinessDataVO getBusinessDataByDailyStats(LocalDate begin, LocalDate end) {
+        BigDecimal turnover = BigDecimal.ZERO;
+        int totalOrderCount = 0;
+        int validOrderCount = 0;
+        int newUsers = 0;
+        for (DailyBusinessStats stats : businessStatsService.getDailyStats(begin, end).values()) {
+            turnover = turnover.add(stats.getTurnover());
+            totalOrderCount += stats.getTotalOrders();
+            validOrderCount += stats.getValidOrders();
+            newUsers += stats.getNewUsers();
+        }
 
-        //待派送
-        map.put("status", Orders.CONFIRMED);
-        Integer deliveredOrders = orderMapper.countByMap(map);
+        Double unitPrice = 0.0;
+        Double orderCompletionRate = 0.0;
+        if (totalOrderCount != 0 && validOrderCount != 0) {
+            //订单完成率
+            orderCompletionRate = (double) validOrderCount / totalOrderCount;
+            //平均客单价
+            unitPrice = turnover.doubleValue() / validOrderCount;
+        }
 
-        //已完成
-        map.put("status", Orders.COMPLETED);
-        Integer completedOrders = orderMapper.countByMap(map);
-
-        //已取消
-        map.put("status", Orders.CANCELLED);
-        Integer cancelledOrders = orderMapper.countByMap(map);
-
-        //全部订单
-        map.put("status", null);
-        Integer allOrders = orderMapper.countByMap(map);
-
-        return OrderOverViewVO.builder()
-                .waitingOrders(waitingOrders)
-                .deliveredOrders(deliveredOrders)
-                .completedOrders(completedOrders)
-                .cancelledOrders(cancelledOrders)
-                .allOrders(allOrders)
+        return BusinessDataVO.builder()
+                .turnover(turnover.doubleValue())
+                .validOrderCount(validOrderCount)
+                .orderCompletionRate(orderCompletionRate)
+                .unitPrice(unitPrice)
+                .newUsers(newUsers)
                 .build();
     }
 
+    /**
+     * 查询订单管理数据
+     * @return
+     */
+    @Override
+    public OrderOverViewVO getOrderOverView() {
+        // 读取内存中的订单状态计数
+        return orderStatusCounterService.getTodayOverView();
+    }
+
     /**
      * 查询菜品总览
      * @return
      */
     @Override
     public DishOverViewVO getDishOverView() {
-        Map<String, Object> map = new HashMap<>();
-        map.put("status", StatusConstant.ENABLE);
-        Integer sold = dishMapper.countByMap(map);
-
-        map.put("status", StatusConstant.DISABLE);
-        Integer discontinued = dishMapper.countByMap(map);
-
-        return DishOverViewVO.builder()
-                .sold(sold)
-                .discontinued(discontinued)
-                .build();
+        return dishOverViewCache.get("dish", k -> dishMapper.countOverView());
     }
 
     /**
@@ -140,16 +163,6 @@ public class WorkspaceServiceImpl implements WorkspaceService {
      */
     @Override
     public SetmealOverViewVO getSetmealOverView() {
-        Map<String, Object> map = new HashMap<>();
-        map.put("status", StatusConstant.ENABLE);
-        Integer sold = setmealMapper.countByMap(map);
-
-        map.put("status", StatusConstant.DISABLE);
-        Integer discontinued = setmealMapper.countByMap(map);
-
-        return SetmealOverViewVO.builder()
-                .sold(sold)
-                .discontinued(discontinued)
-                .build();
+        return setmealOverViewCache.get("setmeal", k -> setmealMapper.countOverView());
     }
 }
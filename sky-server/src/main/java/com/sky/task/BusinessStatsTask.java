@@ -0,0 +1,58 @@
+package com.sky.task;
+
+import com.sky.mapper.DailyBusinessStatsMapper;
+import com.sky.service.BusinessStatsService;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDate;
+
+/**
+ * 每日营业数据汇总的回填和校准
+ */
+@Component
+@Slf4j
+public class BusinessStatsTask {
+
+    @Autowired
+    private BusinessStatsService businessStatsService;
+    @Autowired
+    private DailyBusinessStatsMapper dailyBusinessStatsMapper;
+
+    //启动时检查并回填的天数
+    @Value("${sky.stats.backfill-days:365}")
+    private int backfillDays;
+
+    /**
+     * 启动时如果回填区间内有日期缺少汇总数据，重建整个区间
+     * 重建会为没有订单的日期也写入一行，回填完成后区间内行数等于天数
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void backfill() {
+        if (backfillDays <= 0) {
+            return;
+        }
+        LocalDate yesterday = LocalDate.now().minusDays(1);
+        LocalDate begin = yesterday.minusDays(backfillDays - 1);
+        Integer count = dailyBusinessStatsMapper.countByDateRange(begin, yesterday);
+        if (count != null && count >= backfillDays) {
+            return;
+        }
+        log.info("营业数据汇总缺少{}天，开始回填", backfillDays - (count == null ? 0 : count));
+        businessStatsService.rebuild(begin, yesterday);
+    }
+
+    /**
+     * 每天凌晨根据订单表重新计算前一天的汇总，校准增量统计的误差
+     */
+    @Scheduled(cron = "0 10 0 * * ?")
+    public void rebuildYesterday() {
+        LocalDate yesterday = LocalDate.now().minusDays(1);
+        businessStatsService.rebuild(yesterday, yesterday);
+    }
+}
@@ -0,0 +1,23 @@
+package com.sky.task;
+
+import com.sky.service.ExportJobService;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+/**
+ * 定时清理过期的报表导出文件
+ */
+@Component
+@Slf4j
+public class ExportJobTask {
+
+    @Autowired
+    private ExportJobService exportJobService;
+
+    @Scheduled(cron = "0 * * * * ?")
+    public void cleanExpiredJobs() {
+        exportJobService.cleanExpiredJobs();
+    }
+}
@@ -0,0 +1,37 @@
+package com.sky.task;
+
+import com.sky.service.OrderStatusCounterService;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+/**
+ * 订单状态计数的初始化和定时校准
+ */
+@Component
+@Slf4j
+public class OrderStatusCounterTask {
+
+    @Autowired
+    private OrderStatusCounterService orderStatusCounterService;
+
+    /**
+     * 启动时根据订单表初始化计数
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void init() {
+        orderStatusCounterService.reconcile();
+    }
+
+    /**
+     * 定时校准，修正并发状态变化和其他实例修改订单造成的偏差
+     */
+    @Scheduled(fixedDelayString = "${sky.order.status-counter-reconcile-interval:300000}",
+            initialDelayString = "${sky.order.status-counter-reconcile-interval:300000}")
+    public void reconcile() {
+        orderStatusCounterService.reconcile();
+    }
+}
@@ -1,43 +1,50 @@
 package com.sky.task;
 
-import com.sky.entity.Orders;
-import com.sky.mapper.OrderMapper;
+import com.sky.service.OrderService;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Component;
 
 import java.time.LocalDateTime;
-import java.util.Date;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.BiFunction;
 
 /**
  * 自定义定时任务，实现订单状态定时处理
+ * 每批用一条update修改，循环到没有剩余订单为止
  */
 @Component
 @Slf4j
 public class OrderTask {
 
     @Autowired
-    private OrderMapper orderMapper;
+    private OrderService orderService;
+
+    @Value("${sky.order.sweep-batch-size:500}")
+    private int batchSize;
+
+    @Value("${sky.order.payment-timeout:900}")
+    private long paymentTimeoutSeconds;
+
+    //支付超时订单兜底处理的统计
+    private final SweepStats timeoutStats = new SweepStats();
+    //派送中订单自动完成的统计
+    private final SweepStats deliveryStats = new SweepStats();
 
     /**
      * 处理支付超时订单
+     * 到期取消由 OrderTimeoutTask 完成，这里只兜底处理超时队列遗漏的订单
      */
-    @Scheduled(cron = "0 * * * * ?")
+    @Scheduled(cron = "${sky.order.timeout-sweep-cron:0 */10 * * * ?}")
     public void processTimeoutOrder() {
-        log.info("处理支付超时订单：{}", new Date());
-
-        LocalDateTime time = LocalDateTime.now().plusMinutes(-15);
-        List<Orders> ordersList = orderMapper.getByStatusAndOrdertimeLT(Orders.PENDING_PAYMENT, time);
-        if (ordersList != null && !ordersList.isEmpty()) {
-            ordersList.forEach(order -> {
-                order.setStatus(Orders.CANCELLED);
-                order.setCancelReason("支付超时，自动取消");
-                order.setCancelTime(LocalDateTime.now());
-                orderMapper.update(order);
-            });
-        }
+        LocalDateTime time = LocalDateTime.now().minusSeconds(paymentTimeoutSeconds);
+        sweep("支付超时订单", time, orderService::cancelTimeoutOrders, timeoutStats);
     }
 
     /**
@@ -45,15 +52,85 @@ public class OrderTask {
      */
     @Scheduled(cron = "0 0 1 * * ?")
     public void processDeliveryOrder() {
-        log.info("处理派送中订单：{}", new Date());
-
         LocalDateTime time = LocalDateTime.now().plusMinutes(-60);
-        List<Orders> ordersList = orderMapper.getByStatusAndOrdertimeLT(Orders.DELIVERY_IN_PROGRESS, time);
-        if (ordersList != null && !ordersList.isEmpty()) {
-            ordersList.forEach(order -> {
-                order.setStatus(Orders.COMPLETED);
-                orderMapper.update(order);
-            });
+        sweep("派送中订单", time, orderService::completeDeliveryOrders, deliveryStats);
+    }
+
+    /**
+     * 分批处理，每批一个事务，记录本次处理的行数、批次数和耗时
+     * @param name
+     * @param time
+     * @param batch
+     * @param stats
+     */
+    private void sweep(String name, LocalDateTime time, BiFunction<LocalDateTime, Integer, List<Long>> batch,
+                       SweepStats stats) {
+        long start = System.currentTimeMillis();
+        int rows = 0;
+        int batches = 0;
+        List<Long> ids;
+        do {
+            ids = batch.apply(time, batchSize);
+            if (!ids.isEmpty()) {
+                batches++;
+                rows += ids.size();
+                log.debug("处理{}：{}", name, ids);
+            }
+        } while (ids.size() >= batchSize);
+
+        long cost = System.currentTimeMillis() - start;
+        stats.record(rows, batches, cost);
+        if (rows > 0) {
+            log.info("处理{}：{}条，{}批，耗时{}ms", name, rows, batches, cost);
+        } else {
+            log.debug("处理{}：0条，耗时{}ms", name, cost);
+        }
+    }
+
+    /**
+     * 定时处理订单的统计：执行次数、处理的订单数、批次数和耗时
+     * @return
+     */
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("timeout", timeoutStats.toMap());
+        stats.put("delivery", deliveryStats.toMap());
+        return stats;
+    }
+
+    /**
+     * 单个定时处理的统计
+     */
+    private static class SweepStats {
+        private final LongAdder runs = new LongAdder();
+        private final LongAdder rows = new LongAdder();
+        private final LongAdder batches = new LongAdder();
+        private final LongAdder totalMillis = new LongAdder();
+        private final LongAccumulator maxMillis = new LongAccumulator(Math::max, 0);
+        //最近一次处理的订单数和耗时
+        private volatile long lastRows;
+        private volatile long lastMillis;
+
+        void record(int rows, int batches, long millis) {
+            this.runs.increment();
+            this.rows.add(rows);
+            this.batches.add(batches);
+            this.totalMillis.add(millis);
+            this.maxMillis.accumulate(millis);
+            this.lastRows = rows;
+            this.lastMillis = millis;
+        }
+
+        Map<String, Object> toMap() {
+            Map<String, Object> map = new LinkedHashMap<>();
+            map.put("runs", runs.sum());
+            map.put("rows", rows.sum());
+            map.put("batches", batches.sum());
+            map.put("totalMillis", totalMillis.sum());
+            map.put("maxMillis", maxMillis.get());
+            map.put("lastRows", lastRows);
+            map.put("lastMillis", lastMillis);
+            return map;
         }
     }
 }
@@ -0,0 +1,69 @@
+package com.sky.task;
+
+import com.sky.entity.Orders;
+import com.sky.mapper.OrderMapper;
+import com.sky.service.OrderService;
+import com.sky.service.OrderTimeoutService;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PreDestroy;
+import java.util.List;
+
+/**
+ * 支付超时处理：启动时把待付款订单登记到超时队列，后台线程在订单到期时立即取消
+ */
+@Component
+@Slf4j
+public class OrderTimeoutTask {
+
+    @Autowired
+    private OrderTimeoutService orderTimeoutService;
+    @Autowired
+    private OrderService orderService;
+    @Autowired
+    private OrderMapper orderMapper;
+
+    private Thread worker;
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        List<Orders> ordersList = orderMapper.getIdAndOrderTimeByStatus(Orders.PENDING_PAYMENT);
+        ordersList.forEach(x -> orderTimeoutService.register(x.getId(), x.getOrderTime()));
+        log.info("支付超时队列初始化完成，待付款订单：{}个", ordersList.size());
+
+        worker = new Thread(this::run, "order-timeout");
+        worker.setDaemon(true);
+        worker.start();
+    }
+
+    @PreDestroy
+    public void stop() {
+        if (worker != null) {
+            worker.interrupt();
+        }
+    }
+
+    private void run() {
+        while (!Thread.currentThread().isInterrupted()) {
+            Long orderId;
+            try {
+                orderId = orderTimeoutService.take();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                break;
+            }
+
+            try {
+                if (orderService.cancelTimeoutOrder(orderId)) {
+                    log.info("订单支付超时，自动取消：{}", orderId);
+                }
+            } catch (Exception e) {
+                log.error("订单支付超时取消失败：{}", orderId, e);
+            }
+        }
+    }
+}
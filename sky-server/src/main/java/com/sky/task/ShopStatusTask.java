@@ -0,0 +1,23 @@
+package com.sky.task;
+
+import com.sky.service.ShopService;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+/**
+ * 定时从redis校准本地的店铺营业状态，防止漏收变更通知
+ */
+@Component
+@Slf4j
+public class ShopStatusTask {
+
+    @Autowired
+    private ShopService shopService;
+
+    @Scheduled(fixedDelayString = "${sky.shop.status-refresh-interval:60000}")
+    public void refresh() {
+        shopService.refresh();
+    }
+}
@@ -0,0 +1,23 @@
+package com.sky.task;
+
+import com.sky.service.ShoppingCartStore;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+/**
+ * 定时把redis中有变化的购物车批量写回数据库
+ */
+@Component
+@Slf4j
+public class ShoppingCartPersistTask {
+
+    @Autowired
+    private ShoppingCartStore shoppingCartStore;
+
+    @Scheduled(fixedDelayString = "${sky.cart.persist-interval:10000}")
+    public void flush() {
+        shoppingCartStore.flush();
+    }
+}
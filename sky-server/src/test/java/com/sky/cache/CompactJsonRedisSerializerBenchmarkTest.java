@@ -0,0 +1,119 @@
+package com.sky.cache;
+
+import com.sky.entity.DishFlavor;
+import com.sky.vo.DishVO;
+import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+import org.springframework.data.redis.serializer.JdkSerializationRedisSerializer;
+import org.springframework.data.redis.serializer.RedisSerializer;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * 菜品缓存值的序列化对比：JDK序列化与压缩json的数据大小和序列化/反序列化耗时
+ * 耗时结果只输出到日志，默认不运行，使用 mvn test -Pbenchmark 运行
+ */
+@Slf4j
+@Tag("benchmark")
+class CompactJsonRedisSerializerBenchmarkTest {
+
+    private static final int WARMUP = 2000;
+    private static final int ITERATIONS = 5000;
+
+    private final RedisSerializer<Object> jdk = new JdkSerializationRedisSerializer(getClass().getClassLoader());
+    private final RedisSerializer<Object> json = new CompactJsonRedisSerializer(getClass().getClassLoader(), 1024);
+
+    @ParameterizedTest
+    @ValueSource(ints = {5, 20, 100})
+    void compareWithJdkSerialization(int count) {
+        List<DishVO> dishes = dishes(count);
+
+        Result jdkResult = measure(jdk, dishes);
+        Result jsonResult = measure(json, dishes);
+
+        log.info("{} dishes: jdk {} bytes, ser {} us, deser {} us; json {} bytes, ser {} us, deser {} us",
+                count,
+                jdkResult.bytes, jdkResult.serializeMicros(), jdkResult.deserializeMicros(),
+                jsonResult.bytes, jsonResult.serializeMicros(), jsonResult.deserializeMicros());
+
+        assertTrue(jsonResult.bytes < jdkResult.bytes);
+    }
+
+    private Result measure(RedisSerializer<Object> serializer, List<DishVO> dishes) {
+        byte[] bytes = serializer.serialize(dishes);
+        assertEquals(dishes, serializer.deserialize(bytes));
+
+        for (int i = 0; i < WARMUP; i++) {
+            serializer.deserialize(serializer.serialize(dishes));
+        }
+
+        long serializeNanos = 0;
+        long deserializeNanos = 0;
+        for (int i = 0; i < ITERATIONS; i++) {
+            long start = System.nanoTime();
+            byte[] data = serializer.serialize(dishes);
+            long middle = System.nanoTime();
+            serializer.deserialize(data);
+            deserializeNanos += System.nanoTime() - middle;
+            serializeNanos += middle - start;
+        }
+        return new Result(bytes.length, serializeNanos / ITERATIONS, deserializeNanos / ITERATIONS);
+    }
+
+    /**
+     * 与菜品查询接口返回的数据相近：每个菜品带2个口味
+     */
+    private List<DishVO> dishes(int count) {
+        List<DishVO> dishes = new ArrayList<>();
+        for (long id = 1; id <= count; id++) {
+            DishVO dish = DishVO.builder()
+                    .id(id)
+                    .name("招牌菜品" + id)
+                    .categoryId(10L)
+                    .price(new BigDecimal("38.00").add(BigDecimal.valueOf(id)))
+                    .image("https://sky-take-out.oss-cn-beijing.aliyuncs.com/" + id + "-dish.png")
+                    .description("精选食材，现点现做，第" + id + "道")
+                    .status(1)
+                    // 时间按 JacksonObjectMapper 的格式精确到分钟
+                    .updateTime(LocalDateTime.of(2024, 5, 1, 12, 30))
+                    .categoryName("热销菜品")
+                    .flavors(Arrays.asList(
+                            DishFlavor.builder().id(id * 2).dishId(id).name("辣度")
+                                    .value("[\"不辣\",\"微辣\",\"中辣\",\"重辣\"]").build(),
+                            DishFlavor.builder().id(id * 2 + 1).dishId(id).name("忌口")
+                                    .value("[\"不要葱\",\"不要蒜\",\"不要香菜\",\"不要辣\"]").build()))
+                    .build();
+            dishes.add(dish);
+        }
+        return dishes;
+    }
+
+    private static class Result {
+        private final int bytes;
+        private final long serializeNanos;
+        private final long deserializeNanos;
+
+        Result(int bytes, long serializeNanos, long deserializeNanos) {
+            this.bytes = bytes;
+            this.serializeNanos = serializeNanos;
+            this.deserializeNanos = deserializeNanos;
+        }
+
+        double serializeMicros() {
+            return serializeNanos / 1000.0;
+        }
+
+        double deserializeMicros() {
+            return deserializeNanos / 1000.0;
+        }
+    }
+}
@@ -0,0 +1,96 @@
+package com.sky.cache;
+
+import com.sky.entity.DishFlavor;
+import com.sky.vo.DishVO;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.redis.serializer.JdkSerializationRedisSerializer;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * redis值序列化：json往返、超过阈值时gzip压缩、兼容读取旧的JDK序列化数据
+ */
+class CompactJsonRedisSerializerTest {
+
+    private static final int THRESHOLD = 1024;
+
+    private final CompactJsonRedisSerializer serializer =
+            new CompactJsonRedisSerializer(getClass().getClassLoader(), THRESHOLD);
+
+    @Test
+    void smallValueIsPlainJson() {
+        List<DishVO> dishes = dishes(1);
+
+        byte[] bytes = serializer.serialize(dishes);
+
+        assertTrue(bytes.length <= THRESHOLD);
+        assertEquals('[', bytes[0]);
+        assertEquals(dishes, serializer.deserialize(bytes));
+        assertEquals(0, serializer.getLegacyReads());
+    }
+
+    @Test
+    void largeValueIsGzipped() {
+        List<DishVO> dishes = dishes(50);
+
+        byte[] bytes = serializer.serialize(dishes);
+
+        assertEquals((byte) 0x1F, bytes[0]);
+        assertEquals((byte) 0x8B, bytes[1]);
+        assertEquals(dishes, serializer.deserialize(bytes));
+
+        // 关闭压缩时同样的数据写成json，且比压缩后大
+        byte[] json = new CompactJsonRedisSerializer(getClass().getClassLoader(), -1).serialize(dishes);
+        assertEquals('[', json[0]);
+        assertTrue(json.length > bytes.length);
+        assertEquals(dishes, serializer.deserialize(json));
+    }
+
+    @Test
+    void readsLegacyJdkValues() {
+        List<DishVO> dishes = dishes(3);
+        byte[] legacy = new JdkSerializationRedisSerializer().serialize(dishes);
+
+        assertEquals(dishes, serializer.deserialize(legacy));
+        assertEquals("1", serializer.deserialize(new JdkSerializationRedisSerializer().serialize("1")));
+        assertEquals(2, serializer.getLegacyReads());
+    }
+
+    @Test
+    void scalarsAndNull() {
+        assertEquals("1", serializer.deserialize(serializer.serialize("1")));
+        assertEquals(12L, serializer.deserialize(serializer.serialize(12L)));
+        assertEquals(0, serializer.serialize(null).length);
+        assertNull(serializer.deserialize(new byte[0]));
+        assertNull(serializer.deserialize(null));
+    }
+
+    private List<DishVO> dishes(int count) {
+        List<DishVO> dishes = new ArrayList<>();
+        for (long id = 1; id <= count; id++) {
+            DishVO dish = DishVO.builder()
+                    .id(id)
+                    .name("菜品" + id)
+                    .categoryId(10L)
+                    .price(new BigDecimal("38.50"))
+                    .image("https://example.com/dish/" + id + ".png")
+                    .description("描述" + id)
+                    .status(1)
+                    // 时间按 JacksonObjectMapper 的格式精确到分钟，与接口返回的一致
+                    .updateTime(LocalDateTime.of(2024, 5, 1, 12, 30))
+                    .flavors(Collections.singletonList(DishFlavor.builder()
+                            .id(id).dishId(id).name("辣度").value("[\"不辣\",\"微辣\",\"中辣\"]").build()))
+                    .build();
+            dishes.add(dish);
+        }
+        return dishes;
+    }
+}
@@ -0,0 +1,95 @@
+package com.sky.cache;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+/**
+ * 进程内缓存：按写入时间过期、超过容量时先清理过期条目再淘汰最早过期的条目
+ */
+class LocalCacheTest {
+
+    @Test
+    void entriesExpireAfterTtl() throws InterruptedException {
+        LocalCache<String, String> cache = new LocalCache<>("test", 50, 10);
+        cache.put("a", "1");
+        assertEquals("1", cache.getIfPresent("a"));
+
+        Thread.sleep(80);
+
+        assertNull(cache.getIfPresent("a"));
+        Map<String, Object> stats = cache.getStats();
+        assertEquals(1L, stats.get("hits"));
+        assertEquals(1L, stats.get("misses"));
+        assertEquals(0, stats.get("size"));
+    }
+
+    @Test
+    void evictsEarliestExpiringWhenFull() throws InterruptedException {
+        LocalCache<Integer, String> cache = new LocalCache<>("test", 60000, 3);
+        for (int i = 1; i <= 3; i++) {
+            cache.put(i, "v" + i);
+            Thread.sleep(2);
+        }
+        // 覆盖已有的key不淘汰
+        cache.put(2, "v2");
+        assertEquals(3, cache.getStats().get("size"));
+
+        cache.put(4, "v4");
+
+        assertNull(cache.getIfPresent(1));
+        assertEquals("v2", cache.getIfPresent(2));
+        assertEquals("v3", cache.getIfPresent(3));
+        assertEquals("v4", cache.getIfPresent(4));
+        assertEquals(1L, cache.getStats().get("evictions"));
+        assertEquals(3, cache.getStats().get("size"));
+    }
+
+    @Test
+    void expiredEntriesAreClearedBeforeEvictingLiveOnes() throws InterruptedException {
+        LocalCache<Integer, String> cache = new LocalCache<>("test", 50, 3);
+        cache.put(1, "v1");
+        cache.put(2, "v2");
+        Thread.sleep(80);
+        cache.put(3, "v3");
+
+        // 1、2已过期，写入4时只清理它们
+        cache.put(4, "v4");
+
+        assertEquals("v3", cache.getIfPresent(3));
+        assertEquals("v4", cache.getIfPresent(4));
+        assertEquals(2L, cache.getStats().get("evictions"));
+        assertEquals(2, cache.getStats().get("size"));
+    }
+
+    @Test
+    void loaderResultIsCachedButNullIsNot() {
+        LocalCache<String, String> cache = new LocalCache<>("test", 60000, 10);
+        AtomicInteger loads = new AtomicInteger();
+
+        assertEquals("x", cache.get("a", k -> {
+            loads.incrementAndGet();
+            return "x";
+        }));
+        assertEquals("x", cache.get("a", k -> {
+            loads.incrementAndGet();
+            return "y";
+        }));
+        assertNull(cache.get("b", k -> {
+            loads.incrementAndGet();
+            return null;
+        }));
+        assertNull(cache.get("b", k -> {
+            loads.incrementAndGet();
+            return null;
+        }));
+
+        assertEquals(3, loads.get());
+        cache.invalidate("a");
+        assertNull(cache.getIfPresent("a"));
+    }
+}
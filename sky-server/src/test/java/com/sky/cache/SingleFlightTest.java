@@ -0,0 +1,132 @@
+package com.sky.cache;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * 并发加载合并：同一个key只加载一次，加载失败时所有等待方收到同一个异常，之后可以重新加载
+ */
+class SingleFlightTest {
+
+    private static final int THREADS = 8;
+
+    @Test
+    void concurrentCallsShareOneLoad() throws Exception {
+        SingleFlight<String, String> singleFlight = new SingleFlight<>();
+        CountDownLatch release = new CountDownLatch(1);
+
+        List<Future<String>> futures = runConcurrently(singleFlight, release, () -> "value");
+        awaitCoalesced(singleFlight, THREADS - 1);
+        release.countDown();
+
+        for (Future<String> future : futures) {
+            assertEquals("value", future.get(10, TimeUnit.SECONDS));
+        }
+        assertEquals(1, singleFlight.getLoads());
+        assertEquals(THREADS - 1, singleFlight.getCoalesced());
+
+        // 加载完成后不再合并，下一次调用重新加载
+        assertEquals("next", singleFlight.execute("key", () -> "next"));
+        assertEquals(2, singleFlight.getLoads());
+    }
+
+    @Test
+    void loadFailureIsPropagatedToAllWaiters() throws Exception {
+        SingleFlight<String, String> singleFlight = new SingleFlight<>();
+        CountDownLatch release = new CountDownLatch(1);
+        IllegalStateException failure = new IllegalStateException("load failed");
+
+        List<Future<String>> futures = runConcurrently(singleFlight, release, () -> {
+            throw failure;
+        });
+        awaitCoalesced(singleFlight, THREADS - 1);
+        release.countDown();
+
+        for (Future<String> future : futures) {
+            ExecutionException e = assertThrows(ExecutionException.class, () -> future.get(10, TimeUnit.SECONDS));
+            // 等待方拿到的是原始异常，不是 CompletionException
+            assertSame(failure, e.getCause());
+        }
+        assertEquals(1, singleFlight.getLoads());
+
+        // 失败后key已移除，可以重新加载
+        assertEquals("retry", singleFlight.execute("key", () -> "retry"));
+    }
+
+    @Test
+    void asyncLoadIsSharedAndRejectionIsReported() throws Exception {
+        SingleFlight<String, String> singleFlight = new SingleFlight<>();
+        CountDownLatch release = new CountDownLatch(1);
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        try {
+            CompletableFuture<String> first = singleFlight.executeAsync("key", () -> {
+                await(release);
+                return "async";
+            }, executor);
+            CompletableFuture<String> second = singleFlight.executeAsync("key", () -> "other", executor);
+            assertSame(first, second);
+            release.countDown();
+            assertEquals("async", first.get(10, TimeUnit.SECONDS));
+        } finally {
+            executor.shutdownNow();
+        }
+
+        CompletableFuture<String> rejected = singleFlight.executeAsync("key", () -> "never", task -> {
+            throw new RejectedExecutionException("full");
+        });
+        CompletionException e = assertThrows(CompletionException.class, rejected::join);
+        assertTrue(e.getCause() instanceof RejectedExecutionException);
+        // 被拒绝后key已移除
+        assertEquals("sync", singleFlight.execute("key", () -> "sync"));
+    }
+
+    /**
+     * 同时用同一个key调用，第一个进入加载的调用等待 release 后再执行 loader
+     */
+    private List<Future<String>> runConcurrently(SingleFlight<String, String> singleFlight,
+                                                 CountDownLatch release, Supplier<String> loader) {
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        List<Future<String>> futures = new ArrayList<>();
+        for (int i = 0; i < THREADS; i++) {
+            futures.add(executor.submit(() -> singleFlight.execute("key", () -> {
+                await(release);
+                return loader.get();
+            })));
+        }
+        executor.shutdown();
+        return futures;
+    }
+
+    private void awaitCoalesced(SingleFlight<String, String> singleFlight, int expected) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 10000;
+        while (singleFlight.getCoalesced() < expected && System.currentTimeMillis() < deadline) {
+            Thread.sleep(5);
+        }
+        assertEquals(expected, singleFlight.getCoalesced());
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await(10, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,41 @@
+package com.sky.config;
+
+import com.sky.utils.SnowflakeIdGenerator;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * 订单号生成器的节点id：dev环境默认为0，其他环境未设置时启动失败
+ */
+class OrderNumberConfigurationTest {
+
+    @Test
+    void devProfileDefaultsNodeId() {
+        try (ConfigurableApplicationContext context = start("dev")) {
+            assertEquals(0, context.getBean(SnowflakeIdGenerator.class).getNodeId());
+        }
+    }
+
+    @Test
+    void otherProfilesRequireNodeId() {
+        Exception e = assertThrows(Exception.class, () -> start("prod").close());
+        Throwable cause = e;
+        while (cause.getCause() != null) {
+            cause = cause.getCause();
+        }
+        assertTrue(cause instanceof IllegalStateException);
+        assertTrue(cause.getMessage().contains("sky.order.node-id"));
+    }
+
+    private ConfigurableApplicationContext start(String profile) {
+        return new SpringApplicationBuilder(OrderNumberConfiguration.class)
+                .web(WebApplicationType.NONE)
+                .run("--spring.profiles.active=" + profile);
+    }
+}
@@ -0,0 +1,85 @@
+package com.sky.mapper;
+
+import com.sky.entity.Orders;
+import org.apache.ibatis.builder.xml.XMLMapperBuilder;
+import org.apache.ibatis.mapping.BoundSql;
+import org.apache.ibatis.mapping.ParameterMapping;
+import org.apache.ibatis.session.Configuration;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+import java.io.InputStream;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.regex.Pattern;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * 订单统计语句中的订单状态来自 Orders 中的常量，以参数绑定，不在sql中写死
+ */
+class OrderMapperXmlTest {
+
+    //sql中写死的状态值，例如 status = 5、status in (2, 3, 4)
+    private static final Pattern LITERAL_STATUS = Pattern.compile("status\\s*(=\\s*\\d|in\\s*\\(\\s*\\d)");
+
+    private final Configuration configuration = new Configuration();
+
+    @BeforeEach
+    void setUp() throws Exception {
+        try (InputStream inputStream = getClass().getResourceAsStream("/mapper/OrderMapper.xml")) {
+            new XMLMapperBuilder(inputStream, configuration, "mapper/OrderMapper.xml",
+                    configuration.getSqlFragments()).parse();
+        }
+    }
+
+    @ParameterizedTest
+    @ValueSource(strings = {"countStatistics", "countOverView", "getDailyStatistics",
+            "countByDateAndStatus", "getSalesTop10"})
+    void statusesAreBoundParameters(String statement) {
+        BoundSql boundSql = boundSql(statement);
+
+        assertFalse(LITERAL_STATUS.matcher(boundSql.getSql()).find(), boundSql.getSql());
+        List<Object> statuses = statusValues(boundSql);
+        assertFalse(statuses.isEmpty());
+        assertTrue(Arrays.asList(Orders.PENDING_PAYMENT, Orders.TO_BE_CONFIRMED, Orders.CONFIRMED,
+                Orders.DELIVERY_IN_PROGRESS, Orders.COMPLETED, Orders.CANCELLED).containsAll(statuses));
+    }
+
+    @ParameterizedTest
+    @ValueSource(strings = {"getDailyStatistics", "getSalesTop10"})
+    void salesCountOnlyCompletedOrders(String statement) {
+        BoundSql boundSql = boundSql(statement);
+
+        List<Object> statuses = statusValues(boundSql);
+        assertEquals(Orders.COMPLETED, statuses.get(0));
+    }
+
+    private BoundSql boundSql(String statement) {
+        Map<String, Object> params = new HashMap<>();
+        params.put("begin", LocalDateTime.of(2024, 5, 1, 0, 0));
+        params.put("end", LocalDateTime.of(2024, 5, 31, 23, 59));
+        return configuration.getMappedStatement(OrderMapper.class.getName() + "." + statement).getBoundSql(params);
+    }
+
+    /**
+     * 按出现顺序取出绑定的状态参数值，日期参数除外
+     */
+    private List<Object> statusValues(BoundSql boundSql) {
+        List<Object> values = new ArrayList<>();
+        for (ParameterMapping mapping : boundSql.getParameterMappings()) {
+            String property = mapping.getProperty();
+            if (boundSql.hasAdditionalParameter(property)) {
+                values.add(boundSql.getAdditionalParameter(property));
+            }
+        }
+        return values;
+    }
+}
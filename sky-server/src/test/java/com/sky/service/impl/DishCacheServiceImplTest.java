@@ -0,0 +1,96 @@
+package com.sky.service.impl;
+
+import com.sky.constant.StatusConstant;
+import com.sky.entity.Dish;
+import com.sky.service.DishService;
+import com.sky.vo.DishVO;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.ValueOperations;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+
+/**
+ * 不指定分类查询菜品时直接查询数据库，不经过缓存；加载期间发生失效时不写入加载结果
+ */
+@ExtendWith(MockitoExtension.class)
+class DishCacheServiceImplTest {
+
+    @Mock
+    private DishService dishService;
+    @Mock
+    private RedisTemplate<String, Object> redisTemplate;
+    @Mock
+    private StringRedisTemplate stringRedisTemplate;
+    @Mock
+    private RedisMessageListenerContainer redisMessageListenerContainer;
+    @Mock
+    private ValueOperations<String, Object> valueOperations;
+    @Mock
+    private ValueOperations<String, String> stringValueOperations;
+    @InjectMocks
+    private DishCacheServiceImpl dishCacheService;
+
+    @Test
+    void nullCategoryBypassesCache() {
+        List<DishVO> dishes = Collections.singletonList(DishVO.builder().id(1L).build());
+        when(dishService.listWithFlavor(any())).thenReturn(dishes);
+
+        assertEquals(dishes, dishCacheService.listByCategoryId(null));
+
+        ArgumentCaptor<Dish> captor = ArgumentCaptor.forClass(Dish.class);
+        verify(dishService).listWithFlavor(captor.capture());
+        assertNull(captor.getValue().getCategoryId());
+        assertEquals(StatusConstant.ENABLE, captor.getValue().getStatus());
+        verifyNoInteractions(redisTemplate, stringRedisTemplate);
+    }
+
+    @Test
+    void loadRacingWithEvictIsNotCached() {
+        ReflectionTestUtils.setField(dishCacheService, "localTtlMillis", 60000L);
+        ReflectionTestUtils.setField(dishCacheService, "localMaxSize", 200);
+        ReflectionTestUtils.setField(dishCacheService, "staleTtlMillis", 600000L);
+        ReflectionTestUtils.setField(dishCacheService, "redisTtlSeconds", 86400L);
+        dishCacheService.init();
+        when(redisTemplate.opsForValue()).thenReturn(valueOperations);
+        when(stringRedisTemplate.opsForValue()).thenReturn(stringValueOperations);
+
+        List<DishVO> before = Collections.singletonList(DishVO.builder().id(1L).name("修改前").build());
+        List<DishVO> after = Collections.singletonList(DishVO.builder().id(1L).name("修改后").build());
+        // 第一次查询数据库期间后台修改了菜品
+        when(dishService.listWithFlavor(any())).thenAnswer(invocation -> {
+            dishCacheService.evict(10L);
+            return before;
+        }).thenReturn(after);
+
+        assertEquals(before, dishCacheService.listByCategoryId(10L));
+        verify(valueOperations, never()).set(anyString(), eq(before), anyLong(), any());
+
+        // 修改前的数据没有进入缓存，下一次重新加载
+        assertEquals(after, dishCacheService.listByCategoryId(10L));
+        assertEquals(after, dishCacheService.listByCategoryId(10L));
+        verify(dishService, times(2)).listWithFlavor(any());
+        verify(valueOperations).set(anyString(), eq(after), anyLong(), any());
+    }
+}
@@ -0,0 +1,71 @@
+package com.sky.service.impl;
+
+import com.sky.entity.Dish;
+import com.sky.entity.DishFlavor;
+import com.sky.mapper.DishFlavorMapper;
+import com.sky.mapper.DishMapper;
+import com.sky.vo.DishVO;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoMoreInteractions;
+import static org.mockito.Mockito.when;
+
+/**
+ * 按分类查询菜品和口味的语句数：一次查询菜品，一次查询全部口味
+ */
+@ExtendWith(MockitoExtension.class)
+class DishServiceImplFlavorTest {
+
+    @Mock
+    private DishMapper dishMapper;
+    @Mock
+    private DishFlavorMapper dishFlavorMapper;
+    @InjectMocks
+    private DishServiceImpl dishService;
+
+    @Test
+    void listWithFlavorLoadsFlavorsInOneQuery() {
+        List<Dish> dishes = new ArrayList<>();
+        for (long id = 1; id <= 20; id++) {
+            dishes.add(Dish.builder().id(id).name("dish" + id).build());
+        }
+        when(dishMapper.list(any())).thenReturn(dishes);
+        when(dishFlavorMapper.getByDishIds(any())).thenReturn(Arrays.asList(
+                DishFlavor.builder().dishId(1L).name("辣度").build(),
+                DishFlavor.builder().dishId(1L).name("甜味").build(),
+                DishFlavor.builder().dishId(2L).name("忌口").build()));
+
+        List<DishVO> result = dishService.listWithFlavor(Dish.builder().categoryId(10L).build());
+
+        verify(dishMapper, times(1)).list(any());
+        verify(dishFlavorMapper, times(1)).getByDishIds(any());
+        verifyNoMoreInteractions(dishMapper, dishFlavorMapper);
+
+        assertEquals(20, result.size());
+        assertEquals(2, result.get(0).getFlavors().size());
+        assertEquals(1, result.get(1).getFlavors().size());
+        assertTrue(result.get(2).getFlavors().isEmpty());
+    }
+
+    @Test
+    void listWithFlavorSkipsFlavorQueryWhenNoDish() {
+        when(dishMapper.list(any())).thenReturn(Collections.emptyList());
+
+        assertTrue(dishService.listWithFlavor(new Dish()).isEmpty());
+        verifyNoMoreInteractions(dishFlavorMapper);
+    }
+}
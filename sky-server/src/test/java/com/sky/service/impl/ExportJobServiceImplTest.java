@@ -0,0 +1,122 @@
+package com.sky.service.impl;
+
+import com.sky.exception.ReportBusinessException;
+import com.sky.service.ReportService;
+import com.sky.vo.ExportJobVO;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doAnswer;
+
+/**
+ * 过期导出文件的清理：最近开始过下载（sendfile可能还在读）的文件在保护时间内不删除
+ */
+@ExtendWith(MockitoExtension.class)
+class ExportJobServiceImplTest {
+
+    private static final LocalDate END = LocalDate.of(2024, 5, 31);
+    private static final LocalDate BEGIN = END.minusDays(29);
+
+    @TempDir
+    Path exportDir;
+
+    @Mock
+    private ReportService reportService;
+    @InjectMocks
+    private ExportJobServiceImpl exportJobService;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        ReflectionTestUtils.setField(exportJobService, "exportThreads", 1);
+        ReflectionTestUtils.setField(exportJobService, "exportQueueCapacity", 1);
+        // 导出完成后立即过期
+        ReflectionTestUtils.setField(exportJobService, "exportTtlSeconds", -1L);
+        ReflectionTestUtils.setField(exportJobService, "downloadGraceSeconds", 300L);
+        ReflectionTestUtils.setField(exportJobService, "exportDir", exportDir.toString());
+        exportJobService.init();
+
+        doAnswer(invocation -> {
+            OutputStream out = invocation.getArgument(2);
+            out.write(new byte[]{1, 2, 3});
+            return null;
+        }).when(reportService).writeBusinessData(any(), any(), any(), any());
+    }
+
+    @AfterEach
+    void tearDown() {
+        exportJobService.destroy();
+    }
+
+    @Test
+    void expiredFileIsKeptWhileSendfileMayBeReading() throws Exception {
+        String jobId = finishedJob();
+        Path file = exportDir.resolve(jobId + ".xlsx");
+
+        MockHttpServletRequest request = new MockHttpServletRequest();
+        request.setAttribute("org.apache.tomcat.sendfile.support", Boolean.TRUE);
+        exportJobService.download(jobId, request, new MockHttpServletResponse());
+        assertEquals(file.toAbsolutePath().toString(), request.getAttribute("org.apache.tomcat.sendfile.filename"));
+
+        // 下载刚开始，Tomcat还没打开文件
+        exportJobService.cleanExpiredJobs();
+        assertTrue(Files.exists(file));
+
+        // 保护时间过后删除，之后不能再下载
+        ReflectionTestUtils.setField(exportJobService, "downloadGraceSeconds", 0L);
+        exportJobService.cleanExpiredJobs();
+        assertFalse(Files.exists(file));
+        assertThrows(ReportBusinessException.class, () -> exportJobService.getJob(jobId));
+    }
+
+    @Test
+    void expiredFileWithoutDownloadIsDeleted() throws Exception {
+        String jobId = finishedJob();
+
+        exportJobService.cleanExpiredJobs();
+
+        assertFalse(Files.exists(exportDir.resolve(jobId + ".xlsx")));
+    }
+
+    @Test
+    void streamedDownloadCopiesFile() throws Exception {
+        String jobId = finishedJob();
+        MockHttpServletResponse response = new MockHttpServletResponse();
+
+        exportJobService.download(jobId, new MockHttpServletRequest(), response);
+
+        assertEquals(3, response.getContentAsByteArray().length);
+        // 流复制结束后仍在保护时间内
+        exportJobService.cleanExpiredJobs();
+        assertTrue(Files.exists(exportDir.resolve(jobId + ".xlsx")));
+    }
+
+    private String finishedJob() throws InterruptedException {
+        String jobId = exportJobService.submitBusinessExport(BEGIN, END).getJobId();
+        long deadline = System.currentTimeMillis() + 10000;
+        while (!ExportJobVO.FINISHED.equals(exportJobService.getJob(jobId).getStatus())
+                && System.currentTimeMillis() < deadline) {
+            Thread.sleep(5);
+        }
+        assertEquals(ExportJobVO.FINISHED, exportJobService.getJob(jobId).getStatus());
+        return jobId;
+    }
+}
@@ -0,0 +1,89 @@
+package com.sky.service.impl;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.lang.reflect.Constructor;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * 地理缓存达到上限：只清理写入的那个缓存，先清理过期条目，再淘汰最早写入的条目，不整体清空
+ */
+class GeoServiceImplTest {
+
+    private static final int MAX_SIZE = 100;
+
+    private final GeoServiceImpl geoService = new GeoServiceImpl();
+
+    private Map<Object, Object> addressCache;
+    private Map<Object, Object> routeCache;
+
+    @BeforeEach
+    @SuppressWarnings("unchecked")
+    void setUp() {
+        ReflectionTestUtils.setField(geoService, "cacheMaxSize", MAX_SIZE);
+        addressCache = (Map<Object, Object>) ReflectionTestUtils.getField(geoService, "addressCache");
+        routeCache = (Map<Object, Object>) ReflectionTestUtils.getField(geoService, "routeCache");
+    }
+
+    @Test
+    void fullAddressCacheEvictsOldestAndKeepsRoutes() throws Exception {
+        routeCache.put("expired", route(System.currentTimeMillis() - 1000));
+        for (long id = 1; id <= MAX_SIZE; id++) {
+            addressCache.put(id, address("地址" + id));
+        }
+
+        trim(addressCache);
+
+        // 淘汰到上限的90%，最早写入的先淘汰
+        assertEquals(MAX_SIZE * 9 / 10, addressCache.size());
+        assertFalse(addressCache.containsKey(1L));
+        assertFalse(addressCache.containsKey(10L));
+        assertTrue(addressCache.containsKey(11L));
+        assertTrue(addressCache.containsKey((long) MAX_SIZE));
+        // 路线缓存不受影响
+        assertTrue(routeCache.containsKey("expired"));
+    }
+
+    @Test
+    void fullRouteCacheRemovesExpiredFirst() throws Exception {
+        long now = System.currentTimeMillis();
+        for (int i = 0; i < MAX_SIZE; i++) {
+            // 前一半已过期
+            routeCache.put("route" + i, route(i < MAX_SIZE / 2 ? now - 1000 : now + 60000));
+        }
+        addressCache.put(1L, address("地址1"));
+
+        trim(routeCache);
+
+        assertEquals(MAX_SIZE / 2, routeCache.size());
+        assertFalse(routeCache.containsKey("route0"));
+        assertTrue(routeCache.containsKey("route" + (MAX_SIZE - 1)));
+        assertEquals(1, addressCache.size());
+        assertEquals(Long.valueOf(MAX_SIZE / 2), geoService.getStats().get("evictions"));
+    }
+
+    private void trim(Map<Object, Object> cache) {
+        ReflectionTestUtils.invokeMethod(geoService, "trimIfNecessary", cache);
+    }
+
+    private Object address(String address) throws Exception {
+        return newEntry("AddressLocation", new Class<?>[]{String.class, String.class}, address, "39.9,116.4");
+    }
+
+    private Object route(long expireAt) throws Exception {
+        return newEntry("RouteDistance", new Class<?>[]{Integer.class, long.class}, 1000, expireAt);
+    }
+
+    private Object newEntry(String name, Class<?>[] types, Object... args) throws Exception {
+        Constructor<?> constructor = Class.forName(GeoServiceImpl.class.getName() + "$" + name)
+                .getDeclaredConstructor(types);
+        constructor.setAccessible(true);
+        return constructor.newInstance(args);
+    }
+}
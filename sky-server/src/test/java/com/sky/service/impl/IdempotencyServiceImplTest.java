@@ -0,0 +1,90 @@
+package com.sky.service.impl;
+
+import com.sky.exception.DuplicateRequestException;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.redis.RedisConnectionFailureException;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.ValueOperations;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * 幂等执行：处理中标记使用较短的过期时间，处理结果写入redis失败时仍返回结果，本机重试命中本地缓存
+ */
+@ExtendWith(MockitoExtension.class)
+class IdempotencyServiceImplTest {
+
+    private static final String KEY = "order_submit_1_abc";
+    private static final String REDIS_KEY = "idempotency_" + KEY;
+
+    @Mock
+    private StringRedisTemplate stringRedisTemplate;
+    @Mock
+    private ValueOperations<String, String> valueOperations;
+    @InjectMocks
+    private IdempotencyServiceImpl idempotencyService;
+
+    private final AtomicInteger executions = new AtomicInteger();
+
+    @BeforeEach
+    void setUp() {
+        idempotencyService.configure(600, 30, 100);
+        when(stringRedisTemplate.opsForValue()).thenReturn(valueOperations);
+    }
+
+    @Test
+    void resultWriteFailureStillReturnsResult() {
+        when(valueOperations.setIfAbsent(REDIS_KEY, "PENDING", 30, TimeUnit.SECONDS)).thenReturn(true);
+        doThrow(new RedisConnectionFailureException("down"))
+                .when(valueOperations).set(eq(REDIS_KEY), anyString(), eq(600L), eq(TimeUnit.SECONDS));
+
+        assertEquals("42", idempotencyService.execute(KEY, String.class, this::submit));
+        // 本机重试直接返回本地缓存中的结果，不再执行
+        assertEquals("42", idempotencyService.execute(KEY, String.class, this::submit));
+
+        assertEquals(1, executions.get());
+        assertEquals(1L, idempotencyService.getStats().get("writeFailures"));
+        verify(stringRedisTemplate, never()).delete(anyString());
+    }
+
+    @Test
+    void pendingOnAnotherNodeIsRejected() {
+        when(valueOperations.setIfAbsent(REDIS_KEY, "PENDING", 30, TimeUnit.SECONDS)).thenReturn(false);
+        when(valueOperations.get(REDIS_KEY)).thenReturn("PENDING");
+
+        assertThrows(DuplicateRequestException.class, () -> idempotencyService.execute(KEY, String.class, this::submit));
+        assertEquals(0, executions.get());
+    }
+
+    @Test
+    void failedActionReleasesKey() {
+        when(valueOperations.setIfAbsent(REDIS_KEY, "PENDING", 30, TimeUnit.SECONDS)).thenReturn(true);
+
+        assertThrows(IllegalStateException.class, () -> idempotencyService.execute(KEY, String.class, () -> {
+            throw new IllegalStateException("failed");
+        }));
+        verify(stringRedisTemplate).delete(REDIS_KEY);
+        verify(valueOperations, never()).set(anyString(), anyString(), anyLong(), eq(TimeUnit.SECONDS));
+    }
+
+    private String submit() {
+        executions.incrementAndGet();
+        return "42";
+    }
+}
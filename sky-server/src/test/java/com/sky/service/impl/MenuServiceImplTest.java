@@ -0,0 +1,92 @@
+package com.sky.service.impl;
+
+import com.sky.constant.CacheConstant;
+import com.sky.mapper.CategoryMapper;
+import com.sky.mapper.DishFlavorMapper;
+import com.sky.mapper.DishMapper;
+import com.sky.mapper.SetmealMapper;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.ValueOperations;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import javax.servlet.http.HttpServletResponse;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.mockito.Mockito.when;
+
+/**
+ * 菜单条件请求：If-None-Match 只与本次返回的表示（压缩或未压缩）的ETag比较
+ */
+@ExtendWith(MockitoExtension.class)
+class MenuServiceImplTest {
+
+    @Mock
+    private CategoryMapper categoryMapper;
+    @Mock
+    private DishMapper dishMapper;
+    @Mock
+    private DishFlavorMapper dishFlavorMapper;
+    @Mock
+    private SetmealMapper setmealMapper;
+    @Mock
+    private StringRedisTemplate stringRedisTemplate;
+    @Mock
+    private ValueOperations<String, String> valueOperations;
+    @InjectMocks
+    private MenuServiceImpl menuService;
+
+    @BeforeEach
+    void setUp() {
+        when(stringRedisTemplate.opsForValue()).thenReturn(valueOperations);
+        when(valueOperations.get(CacheConstant.MENU_VERSION_KEY)).thenReturn("1");
+    }
+
+    @Test
+    void etagOfOtherRepresentationIsNotAMatch() {
+        String etag = request(false, null).getHeader("ETag");
+        String gzipEtag = request(true, null).getHeader("ETag");
+        assertNotEquals(etag, gzipEtag);
+
+        // 缓存了未压缩表示的客户端改为接受gzip，需要返回完整的压缩内容
+        MockHttpServletResponse response = request(true, etag);
+        assertEquals(HttpServletResponse.SC_OK, response.getStatus());
+        assertEquals("gzip", response.getHeader("Content-Encoding"));
+        assertEquals(gzipEtag, response.getHeader("ETag"));
+
+        response = request(false, gzipEtag);
+        assertEquals(HttpServletResponse.SC_OK, response.getStatus());
+        assertEquals(etag, response.getHeader("ETag"));
+    }
+
+    @Test
+    void etagOfSameRepresentationIsNotModified() {
+        String etag = request(false, null).getHeader("ETag");
+        String gzipEtag = request(true, null).getHeader("ETag");
+
+        assertEquals(HttpServletResponse.SC_NOT_MODIFIED, request(false, etag).getStatus());
+        assertEquals(HttpServletResponse.SC_NOT_MODIFIED, request(true, "\"other\", " + gzipEtag).getStatus());
+        assertEquals(HttpServletResponse.SC_NOT_MODIFIED, request(true, "*").getStatus());
+        assertEquals(0, request(true, gzipEtag).getContentAsByteArray().length);
+    }
+
+    private MockHttpServletResponse request(boolean gzip, String ifNoneMatch) {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/user/menu");
+        if (gzip) {
+            request.addHeader("Accept-Encoding", "gzip, deflate");
+        }
+        if (ifNoneMatch != null) {
+            request.addHeader("If-None-Match", ifNoneMatch);
+        }
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        menuService.writeMenu(request, response);
+        return response;
+    }
+}
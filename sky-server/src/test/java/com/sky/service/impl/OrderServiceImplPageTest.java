@@ -0,0 +1,113 @@
+package com.sky.service.impl;
+
+import com.github.pagehelper.Page;
+import com.github.pagehelper.PageHelper;
+import com.sky.context.BaseContext;
+import com.sky.dto.OrdersPageQueryDTO;
+import com.sky.entity.OrderDetail;
+import com.sky.entity.Orders;
+import com.sky.mapper.OrderDetailMapper;
+import com.sky.mapper.OrderMapper;
+import com.sky.result.PageResult;
+import com.sky.vo.OrderVO;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoMoreInteractions;
+import static org.mockito.Mockito.when;
+
+/**
+ * 订单分页查询的语句数：无论一页有多少订单，都只查询一次订单和一次明细
+ */
+@ExtendWith(MockitoExtension.class)
+class OrderServiceImplPageTest {
+
+    @Mock
+    private OrderMapper orderMapper;
+    @Mock
+    private OrderDetailMapper orderDetailMapper;
+    @InjectMocks
+    private OrderServiceImpl orderService;
+
+    @AfterEach
+    void tearDown() {
+        PageHelper.clearPage();
+        BaseContext.removeCurrentId();
+    }
+
+    @ParameterizedTest
+    @ValueSource(ints = {1, 10, 50})
+    void pageQuery4UserLoadsDetailsInOneQuery(int pageSize) {
+        stubPage(pageSize);
+        BaseContext.setCurrentId(1L);
+
+        PageResult result = orderService.pageQuery4User(1, pageSize, null);
+
+        verify(orderMapper, times(1)).pageQuery(any());
+        verify(orderDetailMapper, times(1)).getByOrderIds(anyList());
+        verifyNoMoreInteractions(orderMapper, orderDetailMapper);
+
+        assertEquals(pageSize, result.getRecords().size());
+        for (int i = 0; i < pageSize - 1; i++) {
+            assertEquals(2, record(result, i).getOrderDetailList().size());
+        }
+        assertTrue(record(result, pageSize - 1).getOrderDetailList().isEmpty());
+    }
+
+    @ParameterizedTest
+    @ValueSource(ints = {1, 10, 50})
+    void conditionSearchLoadsDetailsInOneQuery(int pageSize) {
+        stubPage(pageSize);
+        OrdersPageQueryDTO dto = new OrdersPageQueryDTO();
+        dto.setPage(1);
+        dto.setPageSize(pageSize);
+
+        PageResult result = orderService.conditionSearch(dto);
+
+        verify(orderMapper, times(1)).pageQuery(any());
+        verify(orderDetailMapper, times(1)).getByOrderIds(anyList());
+        verifyNoMoreInteractions(orderMapper, orderDetailMapper);
+
+        assertEquals(pageSize, result.getRecords().size());
+        for (int i = 0; i < pageSize - 1; i++) {
+            assertEquals("dish" + 2 * i + "*1;dish" + (2 * i + 1) + "*1;", record(result, i).getOrderDishes());
+        }
+        assertEquals("", record(result, pageSize - 1).getOrderDishes());
+    }
+
+    /**
+     * 一页 pageSize 个订单，每个订单两条明细，最后一个订单没有明细
+     */
+    private void stubPage(int pageSize) {
+        Page<Orders> page = new Page<>(1, pageSize);
+        page.setTotal(pageSize);
+        for (long id = 1; id <= pageSize; id++) {
+            page.add(Orders.builder().id(id).status(Orders.TO_BE_CONFIRMED).build());
+        }
+        when(orderMapper.pageQuery(any())).thenReturn(page);
+
+        List<OrderDetail> details = new ArrayList<>();
+        for (int i = 0; i < (pageSize - 1) * 2; i++) {
+            details.add(OrderDetail.builder().orderId((long) i / 2 + 1).name("dish" + i).number(1).build());
+        }
+        when(orderDetailMapper.getByOrderIds(anyList())).thenReturn(details);
+    }
+
+    private OrderVO record(PageResult result, int index) {
+        return (OrderVO) result.getRecords().get(index);
+    }
+}
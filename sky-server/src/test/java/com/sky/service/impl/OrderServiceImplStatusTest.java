@@ -0,0 +1,229 @@
+package com.sky.service.impl;
+
+import com.sky.dto.OrdersCancelDTO;
+import com.sky.dto.OrdersConfirmDTO;
+import com.sky.entity.Orders;
+import com.sky.exception.OrderBusinessException;
+import com.sky.mapper.OrderMapper;
+import com.sky.service.BusinessStatsService;
+import com.sky.service.OrderStatusCounterService;
+import com.sky.service.OrderTimeoutService;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InOrder;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.inOrder;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.verifyNoMoreInteractions;
+import static org.mockito.Mockito.when;
+
+/**
+ * 订单状态流转：一条带原状态条件的update决定是否成功，并发修改同一订单时只有一个成功
+ */
+@ExtendWith(MockitoExtension.class)
+class OrderServiceImplStatusTest {
+
+    private static final long ORDER_ID = 100L;
+    private static final int THREADS = 16;
+
+    @Mock
+    private OrderMapper orderMapper;
+    @Mock
+    private BusinessStatsService businessStatsService;
+    @Mock
+    private OrderStatusCounterService orderStatusCounterService;
+    @Mock
+    private OrderTimeoutService orderTimeoutService;
+    @InjectMocks
+    private OrderServiceImpl orderService;
+
+    //数据库中的订单状态
+    private final AtomicInteger status = new AtomicInteger(Orders.TO_BE_CONFIRMED);
+
+    //所有请求都查询到订单后才继续，保证它们读到的是同一个原状态
+    private final CountDownLatch allRead = new CountDownLatch(THREADS);
+
+    /**
+     * 模拟数据库中的一个订单，取消订单的请求都读到同一个原状态
+     */
+    private void stubOrder() {
+        when(orderMapper.getById(ORDER_ID)).thenAnswer(invocation -> {
+            Orders orders = Orders.builder().id(ORDER_ID).status(status.get()).build();
+            allRead.countDown();
+            allRead.await(10, TimeUnit.SECONDS);
+            return orders;
+        });
+        // 模拟 update ... where id = ? and status in (...)
+        when(orderMapper.updateByIdAndStatuses(any(), anyList())).thenAnswer(invocation -> {
+            Orders orders = invocation.getArgument(0);
+            List<Integer> fromStatuses = invocation.getArgument(1);
+            int current = status.get();
+            return fromStatuses.contains(current) && status.compareAndSet(current, orders.getStatus()) ? 1 : 0;
+        });
+    }
+
+    @Test
+    void concurrentConfirmSucceedsOnce() throws Exception {
+        stubOrder();
+        int succeeded = runConcurrently(i -> {
+            OrdersConfirmDTO ordersConfirmDTO = new OrdersConfirmDTO();
+            ordersConfirmDTO.setId(ORDER_ID);
+            orderService.confirm(ordersConfirmDTO);
+        });
+
+        assertEquals(1, succeeded);
+        assertEquals(Orders.CONFIRMED, status.get());
+        verify(orderStatusCounterService, times(1)).transition(any(), eq(Orders.CONFIRMED));
+    }
+
+    @Test
+    void concurrentConfirmAndCancelSucceedsOnce() throws Exception {
+        stubOrder();
+        int succeeded = runConcurrently(i -> {
+            if (i % 2 == 0) {
+                OrdersConfirmDTO ordersConfirmDTO = new OrdersConfirmDTO();
+                ordersConfirmDTO.setId(ORDER_ID);
+                orderService.confirm(ordersConfirmDTO);
+            } else {
+                orderService.userCancelById(ORDER_ID);
+            }
+        });
+
+        assertEquals(1, succeeded);
+        assertTrue(status.get() == Orders.CONFIRMED || status.get() == Orders.CANCELLED);
+        verify(orderStatusCounterService, times(1)).transition(any(), anyInt());
+        // 只有取消成功时才记录取消统计和移出超时队列
+        int cancelled = status.get() == Orders.CANCELLED ? 1 : 0;
+        verify(businessStatsService, times(cancelled)).orderCancelled(any());
+        verify(orderTimeoutService, times(cancelled)).cancel(anyLong());
+    }
+
+    @Test
+    void finishedOrdersCannotBeCancelled() {
+        for (Integer finished : new Integer[]{Orders.COMPLETED, Orders.CANCELLED}) {
+            when(orderMapper.getById(ORDER_ID)).thenReturn(Orders.builder().id(ORDER_ID).status(finished).build());
+            OrdersCancelDTO ordersCancelDTO = new OrdersCancelDTO();
+            ordersCancelDTO.setId(ORDER_ID);
+            assertThrows(OrderBusinessException.class, () -> orderService.cancel(ordersCancelDTO));
+        }
+        verify(orderMapper, never()).updateByIdAndStatuses(any(), anyList());
+        verifyNoInteractions(businessStatsService, orderStatusCounterService);
+    }
+
+    @Test
+    void confirmIsOneConditionalUpdate() {
+        when(orderMapper.updateByIdAndStatuses(any(), eq(Collections.singletonList(Orders.TO_BE_CONFIRMED))))
+                .thenReturn(1);
+        when(orderMapper.getById(ORDER_ID)).thenReturn(Orders.builder().id(ORDER_ID).status(Orders.CONFIRMED).build());
+        OrdersConfirmDTO ordersConfirmDTO = new OrdersConfirmDTO();
+        ordersConfirmDTO.setId(ORDER_ID);
+
+        orderService.confirm(ordersConfirmDTO);
+
+        // 先用一条带原状态条件的update修改，成功后才读取订单用于计数
+        InOrder inOrder = inOrder(orderMapper);
+        inOrder.verify(orderMapper).updateByIdAndStatuses(any(), anyList());
+        inOrder.verify(orderMapper).getById(ORDER_ID);
+        verifyNoMoreInteractions(orderMapper);
+        ArgumentCaptor<Orders> captor = ArgumentCaptor.forClass(Orders.class);
+        verify(orderStatusCounterService).transition(captor.capture(), eq(Orders.CONFIRMED));
+        assertEquals(Orders.TO_BE_CONFIRMED, captor.getValue().getStatus());
+    }
+
+    @Test
+    void confirmFailsWhenStatusChanged() {
+        when(orderMapper.updateByIdAndStatuses(any(), anyList())).thenReturn(0);
+        when(orderMapper.getById(ORDER_ID)).thenReturn(Orders.builder().id(ORDER_ID).status(Orders.CANCELLED).build());
+        OrdersConfirmDTO ordersConfirmDTO = new OrdersConfirmDTO();
+        ordersConfirmDTO.setId(ORDER_ID);
+
+        assertThrows(OrderBusinessException.class, () -> orderService.confirm(ordersConfirmDTO));
+        verifyNoInteractions(orderStatusCounterService);
+    }
+
+    @Test
+    void completeDeliveryOrdersOnlyCountsUpdatedOrders() {
+        List<Orders> locked = Arrays.asList(
+                Orders.builder().id(1L).status(Orders.DELIVERY_IN_PROGRESS).build(),
+                Orders.builder().id(2L).status(Orders.DELIVERY_IN_PROGRESS).build(),
+                Orders.builder().id(3L).status(Orders.DELIVERY_IN_PROGRESS).build());
+        when(orderMapper.lockByStatusAndOrdertimeLT(eq(Orders.DELIVERY_IN_PROGRESS), any(), eq(500))).thenReturn(locked);
+        // 锁定的3个订单只修改了2个
+        when(orderMapper.updateStatusByIds(anyList(), eq(Orders.DELIVERY_IN_PROGRESS), any())).thenReturn(2);
+        when(orderMapper.getIdsByIdsAndStatus(Arrays.asList(1L, 2L, 3L), Orders.COMPLETED))
+                .thenReturn(Arrays.asList(1L, 3L));
+
+        List<Long> ids = orderService.completeDeliveryOrders(LocalDateTime.now(), 500);
+
+        assertEquals(Arrays.asList(1L, 3L), ids);
+        ArgumentCaptor<Orders> captor = ArgumentCaptor.forClass(Orders.class);
+        verify(orderMapper).updateStatusByIds(anyList(), eq(Orders.DELIVERY_IN_PROGRESS), captor.capture());
+        assertEquals(Orders.COMPLETED, captor.getValue().getStatus());
+        assertNotNull(captor.getValue().getDeliveryTime());
+        verify(businessStatsService).ordersCompleted(Arrays.asList(locked.get(0), locked.get(2)));
+        verify(orderStatusCounterService).transition(locked.get(0), Orders.COMPLETED);
+        verify(orderStatusCounterService).transition(locked.get(2), Orders.COMPLETED);
+        verifyNoMoreInteractions(orderStatusCounterService);
+    }
+
+    /**
+     * 同时发起 THREADS 个请求，返回成功的个数；失败的必须是订单状态错误
+     */
+    private int runConcurrently(Request request) throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        AtomicInteger succeeded = new AtomicInteger();
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int t = 0; t < THREADS; t++) {
+                int i = t;
+                futures.add(executor.submit(() -> {
+                    try {
+                        request.run(i);
+                        succeeded.incrementAndGet();
+                    } catch (OrderBusinessException e) {
+                        // 状态已被其他请求修改
+                    }
+                    return null;
+                }));
+            }
+            for (Future<?> future : futures) {
+                future.get(30, TimeUnit.SECONDS);
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+        return succeeded.get();
+    }
+
+    private interface Request {
+        void run(int i);
+    }
+}
@@ -0,0 +1,96 @@
+package com.sky.service.impl;
+
+import com.sky.dto.OrderStatusCountDTO;
+import com.sky.entity.Orders;
+import com.sky.mapper.OrderMapper;
+import com.sky.vo.OrderStatisticsVO;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.Collections;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.when;
+
+/**
+ * 订单状态计数与校准交错：查询期间提交的状态变化以快照为准，不会重复计数；校准之后的变化计入新的计数
+ */
+@ExtendWith(MockitoExtension.class)
+class OrderStatusCounterServiceImplTest {
+
+    private static final LocalDate TODAY = LocalDate.now();
+
+    @Mock
+    private OrderMapper orderMapper;
+    @InjectMocks
+    private OrderStatusCounterServiceImpl counterService;
+
+    @BeforeEach
+    void setUp() {
+        // 今天2个待接单
+        when(orderMapper.countByDateAndStatus(any())).thenReturn(Collections.singletonList(
+                new OrderStatusCountDTO(TODAY, Orders.TO_BE_CONFIRMED, 2)));
+        counterService.reconcile();
+        assertStatistics(2, 0);
+    }
+
+    @Test
+    void transitionCommittedDuringSnapshotIsNotCountedTwice() {
+        // 查询期间一个订单被接单，快照中已经是接单后的状态
+        when(orderMapper.countByDateAndStatus(any())).thenAnswer(invocation -> {
+            counterService.transition(order(), Orders.CONFIRMED);
+            return Arrays.asList(
+                    new OrderStatusCountDTO(TODAY, Orders.TO_BE_CONFIRMED, 1),
+                    new OrderStatusCountDTO(TODAY, Orders.CONFIRMED, 1));
+        });
+
+        counterService.reconcile();
+        assertStatistics(1, 1);
+
+        // 校准之后的状态变化计入新的计数
+        counterService.transition(order(), Orders.CONFIRMED);
+        assertStatistics(0, 2);
+    }
+
+    @Test
+    void transitionMissingFromSnapshotIsFixedByNextReconcile() {
+        // 查询开始之后才提交的状态变化不在快照中，这次校准少计
+        when(orderMapper.countByDateAndStatus(any())).thenAnswer(invocation -> {
+            counterService.transition(order(), Orders.CONFIRMED);
+            return Collections.singletonList(new OrderStatusCountDTO(TODAY, Orders.TO_BE_CONFIRMED, 2));
+        });
+        counterService.reconcile();
+        assertStatistics(2, 0);
+
+        when(orderMapper.countByDateAndStatus(any())).thenReturn(Arrays.asList(
+                new OrderStatusCountDTO(TODAY, Orders.TO_BE_CONFIRMED, 1),
+                new OrderStatusCountDTO(TODAY, Orders.CONFIRMED, 1)));
+        counterService.reconcile();
+        assertStatistics(1, 1);
+    }
+
+    @Test
+    void createdOrdersAreCounted() {
+        counterService.created(TODAY, Orders.TO_BE_CONFIRMED);
+        assertStatistics(3, 0);
+        assertEquals(3, counterService.getTodayOverView().getAllOrders());
+    }
+
+    private Orders order() {
+        return Orders.builder().status(Orders.TO_BE_CONFIRMED).orderTime(LocalDateTime.now()).build();
+    }
+
+    private void assertStatistics(int toBeConfirmed, int confirmed) {
+        OrderStatisticsVO statistics = counterService.getStatistics();
+        assertEquals(toBeConfirmed, statistics.getToBeConfirmed());
+        assertEquals(confirmed, statistics.getConfirmed());
+    }
+}
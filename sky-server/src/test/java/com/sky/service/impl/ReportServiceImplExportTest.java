@@ -0,0 +1,129 @@
+package com.sky.service.impl;
+
+import com.sky.entity.DailyBusinessStats;
+import com.sky.service.BusinessStatsService;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.poi.xssf.usermodel.XSSFSheet;
+import org.apache.poi.xssf.usermodel.XSSFWorkbook;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * 运营数据报表导出：不同日期区间下写出的行数和汇总数据
+ * 耗时和内存增长只输出到日志，默认不运行，使用 mvn test -Pbenchmark 运行
+ */
+@Slf4j
+@ExtendWith(MockitoExtension.class)
+class ReportServiceImplExportTest {
+
+    private static final int MAX_DAYS = 1100;
+    private static final int ROW_WINDOW = 100;
+    //明细行从第8行开始
+    private static final int DETAIL_ROW_START = 7;
+
+    @Mock
+    private BusinessStatsService businessStatsService;
+    @InjectMocks
+    private ReportServiceImpl reportService;
+
+    @BeforeEach
+    void setUp() {
+        ReflectionTestUtils.setField(reportService, "exportRowWindow", ROW_WINDOW);
+        ReflectionTestUtils.setField(reportService, "exportMaxDays", (long) MAX_DAYS);
+    }
+
+    @ParameterizedTest
+    @ValueSource(ints = {30, 365, 1095})
+    void exportWritesEveryDay(int days) throws Exception {
+        LocalDate end = LocalDate.now().minusDays(1);
+        LocalDate begin = stubStats(end, days);
+        List<Integer> progress = new ArrayList<>();
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        reportService.writeBusinessData(begin, end, out, progress::add);
+
+        // 汇总数据只查询一次
+        verify(businessStatsService, times(1)).getDailyStats(begin, end);
+        assertEquals(Integer.valueOf(100), progress.get(progress.size() - 1));
+
+        try (XSSFWorkbook workbook = new XSSFWorkbook(new ByteArrayInputStream(out.toByteArray()))) {
+            XSSFSheet sheet = workbook.getSheetAt(0);
+            assertEquals(DETAIL_ROW_START + days - 1, sheet.getLastRowNum());
+            assertEquals(begin.toString(), sheet.getRow(DETAIL_ROW_START).getCell(1).getStringCellValue());
+            assertEquals(end.toString(), sheet.getRow(sheet.getLastRowNum()).getCell(1).getStringCellValue());
+            assertEquals(1000 * days, sheet.getRow(3).getCell(2).getNumericCellValue(), 0.001);
+            assertEquals(18 * days, sheet.getRow(4).getCell(2).getNumericCellValue(), 0.001);
+        }
+    }
+
+    @Tag("benchmark")
+    @ParameterizedTest
+    @ValueSource(ints = {30, 365, 1095})
+    void exportCostAndHeapGrowth(int days) throws Exception {
+        LocalDate end = LocalDate.now().minusDays(1);
+        LocalDate begin = stubStats(end, days);
+
+        Runtime runtime = Runtime.getRuntime();
+        System.gc();
+        long usedBefore = runtime.totalMemory() - runtime.freeMemory();
+        long[] peakUsed = {0};
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        long start = System.nanoTime();
+        reportService.writeBusinessData(begin, end, out, percent -> {
+            // 明细行全部写完、文件写出之前，内存中只应保留最近 ROW_WINDOW 行
+            if (percent == 90) {
+                System.gc();
+                peakUsed[0] = runtime.totalMemory() - runtime.freeMemory();
+            }
+        });
+        long costMillis = (System.nanoTime() - start) / 1_000_000;
+
+        log.info("export {} days: {} ms, {} KB file, heap growth {} KB",
+                days, costMillis, out.size() / 1024, (peakUsed[0] - usedBefore) / 1024);
+    }
+
+    /**
+     * 模拟 end 之前 days 天的汇总数据，返回开始日期
+     */
+    private LocalDate stubStats(LocalDate end, int days) {
+        LocalDate begin = end.minusDays(days - 1);
+        Map<LocalDate, DailyBusinessStats> statsMap = new LinkedHashMap<>();
+        for (LocalDate date = begin; !date.isAfter(end); date = date.plusDays(1)) {
+            statsMap.put(date, DailyBusinessStats.builder()
+                    .statDate(date)
+                    .turnover(BigDecimal.valueOf(1000))
+                    .totalOrders(20)
+                    .validOrders(18)
+                    .cancelledOrders(2)
+                    .newUsers(3)
+                    .updateTime(LocalDateTime.now())
+                    .build());
+        }
+        when(businessStatsService.getDailyStats(any(), any())).thenReturn(statsMap);
+        return begin;
+    }
+}
@@ -0,0 +1,58 @@
+package com.sky.service.impl;
+
+import com.sky.constant.CacheConstant;
+import com.sky.service.ShopService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.ValueOperations;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.when;
+
+/**
+ * 店铺营业状态：getStatus 与 isOpen 使用同一个默认值，未设置时为营业中
+ */
+@ExtendWith(MockitoExtension.class)
+class ShopServiceImplTest {
+
+    @Mock
+    private RedisTemplate<String, Object> redisTemplate;
+    @Mock
+    private ValueOperations<String, Object> valueOperations;
+    @InjectMocks
+    private ShopServiceImpl shopService;
+
+    @BeforeEach
+    void setUp() {
+        when(redisTemplate.opsForValue()).thenReturn(valueOperations);
+    }
+
+    @Test
+    void unsetStatusIsOpen() {
+        when(valueOperations.get(CacheConstant.SHOP_STATUS_KEY)).thenReturn(null);
+        shopService.refresh();
+
+        assertEquals(ShopService.OPEN, shopService.getStatus());
+        assertTrue(shopService.isOpen());
+    }
+
+    @Test
+    void explicitStatusIsUsed() {
+        when(valueOperations.get(CacheConstant.SHOP_STATUS_KEY)).thenReturn(ShopService.CLOSED, ShopService.OPEN);
+
+        shopService.refresh();
+        assertEquals(ShopService.CLOSED, shopService.getStatus());
+        assertFalse(shopService.isOpen());
+
+        shopService.refresh();
+        assertEquals(ShopService.OPEN, shopService.getStatus());
+        assertTrue(shopService.isOpen());
+    }
+}
@@ -0,0 +1,128 @@
+package com.sky.utils;
+
+import com.sky.properties.HttpClientProperties;
+import com.sun.net.httpserver.HttpServer;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.http.client.methods.CloseableHttpResponse;
+import org.apache.http.client.methods.HttpGet;
+import org.apache.http.impl.client.CloseableHttpClient;
+import org.apache.http.impl.client.HttpClients;
+import org.apache.http.util.EntityUtils;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * 连接池与每次新建客户端的对比：本地桩服务记录客户端端口，用端口数估算建立的TCP连接数
+ * 耗时结果只输出到日志，默认不运行，使用 mvn test -Pbenchmark 运行
+ */
+@Slf4j
+@Tag("benchmark")
+class HttpClientUtilBenchmarkTest {
+
+    private static final int THREADS = 8;
+    private static final int REQUESTS_PER_THREAD = 100;
+    private static final String BODY = "{\"status\":\"0\"}";
+
+    static {
+        // 桩服务分两次写响应头和响应体，不关闭Nagle时keep-alive连接上每个请求会多等一次延迟确认
+        System.setProperty("sun.net.httpserver.nodelay", "true");
+    }
+
+    private HttpServer server;
+    private String url;
+    private final Set<Integer> clientPorts = ConcurrentHashMap.newKeySet();
+
+    @BeforeEach
+    void startServer() throws Exception {
+        server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        server.createContext("/geo", exchange -> {
+            clientPorts.add(exchange.getRemoteAddress().getPort());
+            byte[] bytes = BODY.getBytes(StandardCharsets.UTF_8);
+            exchange.sendResponseHeaders(200, bytes.length);
+            try (OutputStream out = exchange.getResponseBody()) {
+                out.write(bytes);
+            }
+        });
+        server.setExecutor(Executors.newFixedThreadPool(THREADS));
+        server.start();
+        url = "http://127.0.0.1:" + server.getAddress().getPort() + "/geo";
+
+        HttpClientProperties properties = new HttpClientProperties();
+        properties.setMaxPerRoute(THREADS);
+        HttpClientUtil.configure(properties);
+    }
+
+    @AfterEach
+    void stopServer() {
+        HttpClientUtil.shutdown();
+        server.stop(0);
+        ((ExecutorService) server.getExecutor()).shutdownNow();
+    }
+
+    @Test
+    void pooledClientReusesConnections() throws Exception {
+        long unpooledNanos = run(() -> {
+            // 改造前的做法：每次请求新建并关闭客户端
+            try (CloseableHttpClient client = HttpClients.createDefault();
+                 CloseableHttpResponse response = client.execute(new HttpGet(url))) {
+                return EntityUtils.toString(response.getEntity(), "UTF-8");
+            }
+        });
+        int unpooledConnections = clientPorts.size();
+
+        clientPorts.clear();
+        long pooledNanos = run(() -> HttpClientUtil.doGet(url, null));
+        int pooledConnections = clientPorts.size();
+
+        log.info("unpooled: {} ms, {} connections; pooled: {} ms, {} connections",
+                unpooledNanos / 1_000_000, unpooledConnections, pooledNanos / 1_000_000, pooledConnections);
+
+        // 操作系统可能复用已关闭连接的端口，这里只要求数量级上的差距
+        assertTrue(unpooledConnections > THREADS * REQUESTS_PER_THREAD / 2, "unpooled connections: " + unpooledConnections);
+        assertTrue(pooledConnections <= THREADS, "pooled connections: " + pooledConnections);
+        assertEquals(THREADS * REQUESTS_PER_THREAD,
+                ((Number) HttpClientUtil.getStats().get("127.0.0.1").get("count")).intValue());
+    }
+
+    private long run(Request request) throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        try {
+            long start = System.nanoTime();
+            List<Future<?>> futures = new ArrayList<>();
+            for (int i = 0; i < THREADS; i++) {
+                futures.add(executor.submit(() -> {
+                    for (int j = 0; j < REQUESTS_PER_THREAD; j++) {
+                        assertEquals(BODY, request.send());
+                    }
+                    return null;
+                }));
+            }
+            for (Future<?> future : futures) {
+                future.get();
+            }
+            return System.nanoTime() - start;
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private interface Request {
+        String send() throws Exception;
+    }
+}
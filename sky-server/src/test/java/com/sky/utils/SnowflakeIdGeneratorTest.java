@@ -0,0 +1,138 @@
+package com.sky.utils;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * 雪花id：多线程唯一且每个线程内递增、序号用完进位到下一毫秒、时间戳领先系统时钟的上限和重启后的起始时间
+ */
+class SnowflakeIdGeneratorTest {
+
+    private static final int SEQUENCE_BITS = 12;
+    private static final int NODE_BITS = 10;
+
+    @Test
+    void concurrentIdsAreUniqueAndOrderedPerThread() throws Exception {
+        int threads = 8;
+        int perThread = 50000;
+        SnowflakeIdGenerator generator = new SnowflakeIdGenerator(37, 5000, System.currentTimeMillis() - 60000);
+        Set<Long> ids = ConcurrentHashMap.newKeySet();
+        CountDownLatch start = new CountDownLatch(1);
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int t = 0; t < threads; t++) {
+                futures.add(executor.submit(() -> {
+                    start.await();
+                    long last = -1;
+                    for (int i = 0; i < perThread; i++) {
+                        long id = generator.nextId();
+                        assertTrue(id > last, "同一线程内id必须递增");
+                        assertEquals(37, node(id));
+                        ids.add(id);
+                        last = id;
+                    }
+                    return null;
+                }));
+            }
+            start.countDown();
+            for (Future<?> future : futures) {
+                future.get(30, TimeUnit.SECONDS);
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+
+        assertEquals(threads * perThread, ids.size());
+        assertEquals(threads * perThread, generator.getGenerated());
+    }
+
+    @Test
+    void sequenceRollsOverToNextMillisecond() {
+        // 从 当前时间 + 10秒 开始生成，系统时钟追上之前一直沿用这个时间戳递增
+        long now = System.currentTimeMillis();
+        SnowflakeIdGenerator generator = new SnowflakeIdGenerator(1, 10000, now);
+        int count = 3 * (1 << SEQUENCE_BITS) + 5;
+        long[] ids = new long[count];
+        for (int i = 0; i < count; i++) {
+            ids[i] = generator.nextId();
+        }
+
+        // 起始状态是起始时间戳的0号序号，第一个id从1号开始
+        long startTimestamp = now + 10000 - SnowflakeIdGenerator.EPOCH;
+        for (int i = 0; i < count; i++) {
+            assertEquals(startTimestamp + (i + 1) / (1 << SEQUENCE_BITS), timestamp(ids[i]));
+            assertEquals((i + 1) % (1 << SEQUENCE_BITS), sequence(ids[i]));
+        }
+        assertEquals(count, generator.getBorrowed());
+    }
+
+    @Test
+    void neverLeadsClockByMoreThanAllowed() {
+        // 不允许领先时，序号用完后等到下一毫秒
+        SnowflakeIdGenerator generator = new SnowflakeIdGenerator(2, 0, System.currentTimeMillis() - 60000);
+        for (int i = 0; i < 5 * (1 << SEQUENCE_BITS); i++) {
+            long id = generator.nextId();
+            assertTrue(timestamp(id) + SnowflakeIdGenerator.EPOCH <= System.currentTimeMillis());
+        }
+        assertEquals(0, generator.getBorrowed());
+    }
+
+    @Test
+    void restartStartsAfterPreviousProcessLead() {
+        long start = System.currentTimeMillis();
+        SnowflakeIdGenerator previous = new SnowflakeIdGenerator(3, 2000, start - 60000);
+        long lastOfPrevious = previous.nextId();
+
+        // 新进程从启动时间 + 允许领先的时间开始，不会重复使用上一个进程的时间戳
+        SnowflakeIdGenerator restarted = new SnowflakeIdGenerator(3, 2000, start);
+        long first = restarted.nextId();
+        assertTrue(timestamp(first) >= start + 2000 - SnowflakeIdGenerator.EPOCH);
+        assertTrue(first > lastOfPrevious);
+    }
+
+    @Test
+    void rejectsClockBehindByMoreThanAllowed() {
+        // 上一次的时间戳领先系统时钟15秒，超过允许的5秒
+        SnowflakeIdGenerator generator = new SnowflakeIdGenerator(4, 5000, System.currentTimeMillis() + 10000);
+        assertThrows(IllegalStateException.class, generator::nextId);
+        assertThrows(IllegalArgumentException.class, () -> new SnowflakeIdGenerator(SnowflakeIdGenerator.MAX_NODE_ID + 1, 0));
+    }
+
+    @Test
+    void numbersAreFixedLengthAndOrdered() {
+        SnowflakeIdGenerator generator = new SnowflakeIdGenerator(5, 5000, System.currentTimeMillis() - 60000);
+        String last = "";
+        for (int i = 0; i < 10000; i++) {
+            String number = generator.nextNumber();
+            assertEquals(19, number.length());
+            assertTrue(number.compareTo(last) > 0);
+            last = number;
+        }
+    }
+
+    private long timestamp(long id) {
+        return id >>> (NODE_BITS + SEQUENCE_BITS);
+    }
+
+    private long node(long id) {
+        return (id >>> SEQUENCE_BITS) & SnowflakeIdGenerator.MAX_NODE_ID;
+    }
+
+    private long sequence(long id) {
+        return id & ((1L << SEQUENCE_BITS) - 1);
+    }
+}